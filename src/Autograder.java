@@ -153,10 +153,15 @@ class GraphSearchState implements SearchState {
     }
 }
 
-class GraphSearchProblem extends SearchProblem<GraphSearchState, GraphAction> {
+class GraphSearchProblem extends SearchProblem<GraphSearchState, GraphAction>
+        implements BidirectionalSearchProblem<GraphSearchState, GraphAction> {
     GraphSearchState startState;
     Set<GraphSearchState> goalStates;
     Map<GraphSearchState, Collection<SuccessorInfo<GraphSearchState, GraphAction>>> successors;
+    /**
+     * For each state the edges leading into it as (previous state, action, cost), built on first use
+     */
+    Map<GraphSearchState, List<SuccessorInfo<GraphSearchState, GraphAction>>> predecessors;
 
     public GraphSearchProblem(GraphSearchState startState,
                               Set<GraphSearchState> goalStates,
@@ -184,6 +189,40 @@ class GraphSearchProblem extends SearchProblem<GraphSearchState, GraphAction> {
         return successors.get(state);
     }
 
+    @Override
+    public void expand(GraphSearchState state, SuccessorBuffer<GraphSearchState, GraphAction> buffer) {
+        buffer.clear();
+        for (SuccessorInfo<GraphSearchState, GraphAction> successor : successors.get(state)) {
+            buffer.add(successor.nextState, successor.action, successor.cost);
+        }
+
+        doBookKeeping(state);
+    }
+
+    @Override
+    public Collection<GraphSearchState> getGoalStates() {
+        return goalStates;
+    }
+
+    @Override
+    public void expandReverse(GraphSearchState state, SuccessorBuffer<GraphSearchState, GraphAction> buffer) {
+        if (predecessors == null) {
+            predecessors = new HashMap<>();
+            for (Map.Entry<GraphSearchState, Collection<SuccessorInfo<GraphSearchState, GraphAction>>> entry : successors.entrySet()) {
+                for (SuccessorInfo<GraphSearchState, GraphAction> successor : entry.getValue()) {
+                    predecessors.computeIfAbsent(successor.nextState, key -> new ArrayList<>())
+                            .add(new SuccessorInfo<>(entry.getKey(), successor.action, successor.cost));
+                }
+            }
+        }
+        buffer.clear();
+        for (SuccessorInfo<GraphSearchState, GraphAction> predecessor : predecessors.getOrDefault(state, List.of())) {
+            buffer.add(predecessor.nextState, predecessor.action, predecessor.cost);
+        }
+
+        doBookKeeping(state);
+    }
+
     @Override
     public List<GraphAction> getActions(GraphSearchState state) {
         return successors.get(state).stream()
@@ -386,6 +425,9 @@ class PacmanSearchTest<S,A> extends PacmanTestCase<S,A> {
     List<Integer> expandedCounts;
     String strategy;
     String heuristicName;
+    SearchOptions options;
+    String referenceStrategy;
+    boolean fewerExpansions;
 
     public PacmanSearchTest(String testname, String layoutText, String searchProblemClassName,
                             String strategy,
@@ -395,6 +437,7 @@ class PacmanSearchTest<S,A> extends PacmanTestCase<S,A> {
         this.goldSolutions = solutions;
         this.expandedCounts = expandedCounts;
         this.heuristicName = null;
+        this.options = new SearchOptions();
     }
 
     public PacmanSearchTest(String testname, String layoutText, String searchProblemClassName,
@@ -406,13 +449,44 @@ class PacmanSearchTest<S,A> extends PacmanTestCase<S,A> {
         this.goldSolutions = solutions;
         this.expandedCounts = expandedCounts;
         this.heuristicName = heuristicName;
+        this.options = new SearchOptions();
+    }
+
+    /**
+     * Test of a strategy whose solutions are not unique, such as pastar with several threads:
+     * the solution must reach a goal at the cost of the astar solution
+     */
+    public PacmanSearchTest(String testname, String layoutText, String searchProblemClassName,
+                            String strategy, String heuristicName, SearchOptions options) {
+        this(testname, layoutText, searchProblemClassName, strategy, heuristicName, options, "astar", false);
+    }
+
+    /**
+     * Test of a strategy against referenceStrategy: the solution must reach a goal at the cost of the reference
+     * solution, with fewer expansions if fewerExpansions is set, and there must be none if the reference finds none
+     */
+    public PacmanSearchTest(String testname, String layoutText, String searchProblemClassName,
+                            String strategy, String heuristicName, SearchOptions options,
+                            String referenceStrategy, boolean fewerExpansions) {
+        super(testname, layoutText, searchProblemClassName);
+        this.strategy = strategy;
+        this.goldSolutions = null;
+        this.expandedCounts = null;
+        this.heuristicName = heuristicName;
+        this.options = options;
+        this.referenceStrategy = referenceStrategy;
+        this.fewerExpansions = fewerExpansions;
     }
 
     @Override
     public TestResult execute() throws Exception {
 
         ProblemSetup<S, A> setup = setupProblem(heuristicName);
-        Solution<S, A> solution = GraphSearch.search(strategy, setup.problem, setup.heuristic);
+        Solution<S, A> solution = GraphSearch.search(strategy, setup.problem, setup.heuristic, options);
+
+        if (goldSolutions == null) {
+            return compareWithReference(setup, solution);
+        }
 
         if (!goldSolutions.contains(solution.actions)) {
             return new TestResult(false,
@@ -437,9 +511,202 @@ class PacmanSearchTest<S,A> extends PacmanTestCase<S,A> {
                 "\texpanded count:\t" + setup.problem.getExpandedCount() + "\n");
 
     }
+
+    private TestResult compareWithReference(ProblemSetup<S, A> setup, Solution<S, A> solution) throws Exception {
+        ProblemSetup<S, A> goldSetup = setupProblem(heuristicName);
+        Solution<S, A> goldSolution = GraphSearch.search(referenceStrategy, goldSetup.problem, goldSetup.heuristic);
+
+        if (goldSolution == null) {
+            if (solution != null) {
+                return new TestResult(false, "Solution found where there is none.\n" +
+                        "\tstudent solution:\n" + solution.actions + "\n");
+            }
+            return new TestResult(true,
+                    "\tno solution\n" +
+                    "\texpanded count:\t" + setup.problem.getExpandedCount() + "\n");
+        }
+        if (solution == null) {
+            return new TestResult(false, "No solution found.\n\tcorrect solution cost: " + goldSolution.pathCost + "\n");
+        }
+
+        S state = setup.problem.getStartState();
+        double cost = 0;
+        for (A action : solution.actions) {
+            cost += setup.problem.getCost(state, action);
+            state = setup.problem.getSuccessor(state, action);
+        }
+        if (!setup.problem.isGoalState(state) || cost != solution.pathCost) {
+            return new TestResult(false, "Solution does not reach a goal at its cost.\n" +
+                    "\tstudent solution:\n" + solution.actions + "\n");
+        }
+
+        if (solution.pathCost != goldSolution.pathCost) {
+            return new TestResult(false,
+                    "Optimal solution not found.\n" +
+                    "\tstudent solution cost: " + solution.pathCost + "\n" +
+                    "\tcorrect solution cost: " + goldSolution.pathCost + "\n");
+        }
+
+        if (fewerExpansions && setup.problem.getExpandedCount() >= goldSetup.problem.getExpandedCount()) {
+            return new TestResult(false,
+                    "Not fewer nodes expanded than " + referenceStrategy + ".\n" +
+                    "\tstudent expanded count: " + setup.problem.getExpandedCount() + "\n" +
+                    "\t" + referenceStrategy + " expanded count: " + goldSetup.problem.getExpandedCount() + "\n");
+        }
+
+        return new TestResult(true,
+                "\tsolution cost: " + solution.pathCost + "\n" +
+                "\texpanded count:\t" + setup.problem.getExpandedCount() + "\n");
+    }
+}
+
+class NodeLimitTest<S,A> extends PacmanTestCase<S,A> {
+    String strategy;
+    String heuristicName;
+    SearchOptions options;
+
+    /**
+     * Test of a strategy that reaches options.nodeLimit before it finds a solution: it must give up
+     * without a solution and without expanding more nodes than the limit
+     */
+    public NodeLimitTest(String testname, String layoutText, String searchProblemClassName,
+                         String strategy, String heuristicName, SearchOptions options) {
+        super(testname, layoutText, searchProblemClassName);
+        this.strategy = strategy;
+        this.heuristicName = heuristicName;
+        this.options = options;
+    }
+
+    @Override
+    public TestResult execute() throws Exception {
+        ProblemSetup<S, A> setup = setupProblem(heuristicName);
+        Solution<S, A> solution = GraphSearch.search(strategy, setup.problem, setup.heuristic, options);
+
+        if (solution != null) {
+            return new TestResult(false, "Solution found beyond the node limit.\n" +
+                    "\tnode limit: " + options.nodeLimit + "\n" +
+                    "\tstudent solution:\n" + solution.actions + "\n");
+        }
+        if (setup.problem.getExpandedCount() > options.nodeLimit) {
+            return new TestResult(false, "Too many nodes expanded.\n" +
+                    "\tstudent expanded count: " + setup.problem.getExpandedCount() + "\n" +
+                    "\tnode limit: " + options.nodeLimit + "\n");
+        }
+        return new TestResult(true, "\texpanded count:\t" + setup.problem.getExpandedCount() + "\n");
+    }
+}
+
+class AnytimeSearchTest<S,A> extends PacmanTestCase<S,A> {
+    String heuristicName;
+    double initialWeight;
+    double weightDecrement;
+
+    /**
+     * Test of arastar: every solution it reports must reach a goal at a cost within its bound times the astar
+     * solution cost, the bound being at most the initial weight, and the last solution must be optimal
+     */
+    public AnytimeSearchTest(String testname, String layoutText, String searchProblemClassName,
+                             String heuristicName, double initialWeight, double weightDecrement) {
+        super(testname, layoutText, searchProblemClassName);
+        this.heuristicName = heuristicName;
+        this.initialWeight = initialWeight;
+        this.weightDecrement = weightDecrement;
+    }
+
+    @Override
+    public TestResult execute() throws Exception {
+        ProblemSetup<S, A> goldSetup = setupProblem(heuristicName);
+        Solution<S, A> goldSolution = GraphSearch.search("astar", goldSetup.problem, goldSetup.heuristic);
+
+        ProblemSetup<S, A> setup = setupProblem(heuristicName);
+        List<Solution<S, A>> solutions = new ArrayList<>();
+        List<Double> bounds = new ArrayList<>();
+        SearchOptions options = new SearchOptions();
+        options.initialWeight = initialWeight;
+        options.weightDecrement = weightDecrement;
+        options.solutionListener = (solution, bound) -> {
+            @SuppressWarnings("unchecked")
+            Solution<S, A> reported = (Solution<S, A>) solution;
+            solutions.add(reported);
+            bounds.add(bound);
+        };
+        Solution<S, A> solution = GraphSearch.search("arastar", setup.problem, setup.heuristic, options);
+
+        if (solution == null || solutions.isEmpty() || solutions.get(solutions.size() - 1) != solution) {
+            return new TestResult(false, "Last reported solution not returned.\n" +
+                    "\treported solutions: " + solutions.size() + "\n");
+        }
+        for (int i = 0; i < solutions.size(); i++) {
+            Solution<S, A> reported = solutions.get(i);
+            double bound = bounds.get(i);
+            if (!checkSolution(setup.problem, reported) || computeSolutionCost(setup.problem, reported) != reported.pathCost) {
+                return new TestResult(false, "Solution does not reach a goal at its cost.\n" +
+                        "\tstudent solution:\n" + reported.actions + "\n");
+            }
+            if (bound > initialWeight || reported.pathCost > bound * goldSolution.pathCost + 1e-9) {
+                return new TestResult(false, "Solution not within its bound.\n" +
+                        "\tstudent solution cost: " + reported.pathCost + "\n" +
+                        "\tbound: " + bound + "\n" +
+                        "\tcorrect solution cost: " + goldSolution.pathCost + "\n");
+            }
+        }
+        if (solution.pathCost != goldSolution.pathCost) {
+            return new TestResult(false,
+                    "Optimal solution not found.\n" +
+                    "\tstudent solution cost: " + solution.pathCost + "\n" +
+                    "\tcorrect solution cost: " + goldSolution.pathCost + "\n");
+        }
+
+        return new TestResult(true,
+                "\tsolution costs: " + solutions.stream().map(reported -> reported.pathCost).collect(Collectors.toList()) + "\n" +
+                "\tbounds: " + bounds + "\n");
+    }
+}
+
+class BeamSearchTest<S,A> extends PacmanTestCase<S,A> {
+    String heuristicName;
+    int beamWidth;
+
+    /**
+     * Test of beam search: the solution must reach a goal at its cost, and as every layer of the search expands
+     * at most beamWidth nodes and the goal is found among the successors of the last one, no more than
+     * beamWidth times the solution length nodes may be expanded
+     */
+    public BeamSearchTest(String testname, String layoutText, String searchProblemClassName,
+                          String heuristicName, int beamWidth) {
+        super(testname, layoutText, searchProblemClassName);
+        this.heuristicName = heuristicName;
+        this.beamWidth = beamWidth;
+    }
+
+    @Override
+    public TestResult execute() throws Exception {
+        ProblemSetup<S, A> setup = setupProblem(heuristicName);
+        SearchOptions options = new SearchOptions();
+        options.beamWidth = beamWidth;
+        Solution<S, A> solution = GraphSearch.search("beam", setup.problem, setup.heuristic, options);
+
+        if (solution == null) {
+            return new TestResult(false, "No solution found.\n");
+        }
+        if (!checkSolution(setup.problem, solution) || computeSolutionCost(setup.problem, solution) != solution.pathCost) {
+            return new TestResult(false, "Solution does not reach a goal at its cost.\n" +
+                    "\tstudent solution:\n" + solution.actions + "\n");
+        }
+        if (setup.problem.getExpandedCount() > (long) beamWidth * solution.actions.size()) {
+            return new TestResult(false, "Beam width exceeded.\n" +
+                    "\tstudent expanded count: " + setup.problem.getExpandedCount() + "\n" +
+                    "\tbeam width: " + beamWidth + "\n" +
+                    "\tsolution length: " + solution.actions.size() + "\n");
+        }
+
+        return new TestResult(true,
+                "\tsolution length: " + solution.actions.size() + "\n" +
+                "\texpanded count:\t" + setup.problem.getExpandedCount() + "\n");
+    }
 }
 
-class PacmanCornersTest extends PacmanTestCase<PacmanCornersSearchState,PacmanAction> {
+class PacmanCornersTest extends PacmanTestCase<PacmanWaypointsSearchState,PacmanAction> {
     String strategy;
     int goldSolutionLength;
 
@@ -453,8 +720,8 @@ class PacmanCornersTest extends PacmanTestCase<PacmanCornersSearchState,PacmanAc
     @Override
     public TestResult execute() throws Exception {
 
-        ProblemSetup<PacmanCornersSearchState, PacmanAction> setup = setupProblem("NullHeuristic");
-        Solution<PacmanCornersSearchState, PacmanAction> solution = GraphSearch.search(strategy, setup.problem, setup.heuristic);
+        ProblemSetup<PacmanWaypointsSearchState, PacmanAction> setup = setupProblem("NullHeuristic");
+        Solution<PacmanWaypointsSearchState, PacmanAction> solution = GraphSearch.search(strategy, setup.problem, setup.heuristic);
 
         Maze maze = getMaze(problemEncoding);
         Set<Coordinate> notVisitedCorners = new HashSet<>(Arrays.asList(
@@ -717,6 +984,23 @@ class ProblemEncodings {
             "%P%   .%\n" +
             "%%%%%%%%";
 
+    static final String PACMAN_UNREACHABLE_GOAL =
+            "%%%%%%%%\n" +
+            "%P     %\n" +
+            "%   %  %\n" +
+            "%%  %  %\n" +
+            "% %    %\n" +
+            "%%%%%%%%";
+
+    static final String PACMAN_TRICKY_SEARCH =
+            "%%%%%%%%%%%%%%%%%%%%\n" +
+            "%.           ..%   %\n" +
+            "%.%%.%%.%%.%%.%% % %\n" +
+            "%        P       % %\n" +
+            "%%%%%%%%%%%%%%%%%% %\n" +
+            "%.....             %\n" +
+            "%%%%%%%%%%%%%%%%%%%%";
+
     static final String PACMAN_MEDIUM_MAZE =
             "%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n" +
             "%                                 P%\n" +
@@ -955,7 +1239,7 @@ public class Autograder {
     });
 
     static final QuestionSuite Q5 = new QuestionSuite("Q5", new TestCase[]{
-            new HeuristicTest<PacmanCornersSearchState, PacmanAction>(
+            new HeuristicTest<PacmanWaypointsSearchState, PacmanAction>(
                     "Test 1",
                     "%%%%%%\n" +
                     "%.  .%\n" +
@@ -966,7 +1250,7 @@ public class Autograder {
                     List.of(PacmanAction.NORTH, PacmanAction.SOUTH, PacmanAction.SOUTH, PacmanAction.EAST,
                             PacmanAction.EAST, PacmanAction.EAST, PacmanAction.NORTH, PacmanAction.NORTH)
             ),
-            new HeuristicTest<PacmanCornersSearchState, PacmanAction>(
+            new HeuristicTest<PacmanWaypointsSearchState, PacmanAction>(
                     "Test 2",
                     "%%%%%%\n" +
                     "%.  .%\n" +
@@ -977,7 +1261,7 @@ public class Autograder {
                     List.of(PacmanAction.WEST, PacmanAction.NORTH, PacmanAction.NORTH, PacmanAction.EAST,
                             PacmanAction.EAST, PacmanAction.EAST, PacmanAction.SOUTH, PacmanAction.SOUTH)
             ),
-            new HeuristicTest<PacmanCornersSearchState, PacmanAction>(
+            new HeuristicTest<PacmanWaypointsSearchState, PacmanAction>(
                     "Test 3",
                     "%%%%%%%%\n" +
                     "%.%   .%\n" +
@@ -987,7 +1271,7 @@ public class Autograder {
                     "%%%%%  %\n" +
                     "%.    .%\n" +
                     "%%%%%%%%",
-                    "PacmanCornersProblem", "CornersHeuristic", 26,
+                    "PacmanCornersProblem", "CornersHeuristic", 28,
                     List.of(PacmanAction.SOUTH, PacmanAction.SOUTH, PacmanAction.SOUTH, PacmanAction.WEST,
                             PacmanAction.WEST, PacmanAction.WEST, PacmanAction.WEST, PacmanAction.EAST,
                             PacmanAction.EAST, PacmanAction.EAST, PacmanAction.EAST, PacmanAction.EAST,
@@ -996,7 +1280,7 @@ public class Autograder {
                             PacmanAction.SOUTH, PacmanAction.SOUTH, PacmanAction.SOUTH, PacmanAction.WEST,
                             PacmanAction.WEST, PacmanAction.NORTH, PacmanAction.NORTH, PacmanAction.NORTH)
             ),
-            new GradedHeuristicTest<PacmanCornersSearchState, PacmanAction>(
+            new GradedHeuristicTest<PacmanWaypointsSearchState, PacmanAction>(
                     "MediumCorners",
                     "%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n" +
                     "%.      % % %              %.%\n" +
@@ -1204,18 +1488,140 @@ public class Autograder {
                     "%%%%%%%%",
                     "PacmanFoodSearchProblem", "FoodHeuristic", 16),
             new GradedHeuristicTest<PacmanFoodSearchState, PacmanAction>(
-                    "trickySearch",
-                    "%%%%%%%%%%%%%%%%%%%%\n" +
-                    "%.           ..%   %\n" +
-                    "%.%%.%%.%%.%%.%% % %\n" +
-                    "%        P       % %\n" +
-                    "%%%%%%%%%%%%%%%%%% %\n" +
-                    "%.....             %\n" +
-                    "%%%%%%%%%%%%%%%%%%%%",
+                    "trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
                     "PacmanFoodSearchProblem", "FoodHeuristic", 60,
                     List.of(15000, 12000, 9000)),
             });
 
+    static final QuestionSuite Q7 = new QuestionSuite("Q7", new TestCase[] {
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Parallel A* Medium Maze", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "pastar", "ManhattanDistanceHeuristic", threads(4)),
+            new PacmanSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "Parallel A* Corners Tiny", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanCornersProblem", "pastar", "CornersHeuristic", threads(2)),
+            new PacmanSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "Parallel A* Corners Tiny 3", ProblemEncodings.PACMAN_TINY_CORNERS3,
+                    "PacmanCornersProblem", "pastar", "CornersHeuristic", threads(8)),
+            new PacmanSearchTest<PacmanFoodSearchState, PacmanAction>(
+                    "Parallel A* trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanFoodSearchProblem", "pastar", "FoodHeuristic", threads(4)),
+    });
+
+    static final QuestionSuite Q8 = new QuestionSuite("Q8", new TestCase[] {
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Jump Point Medium Maze", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "jps", "ManhattanDistanceHeuristic", new SearchOptions(),
+                    "astar", true),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Jump Point Medium Maze Null Heuristic", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "jps", null, new SearchOptions(), "astar", true),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Jump Point Corners Tiny", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanPositionSearchProblem", "jps", "ManhattanDistanceHeuristic", new SearchOptions(),
+                    "astar", true),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Jump Point trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "jps", "ManhattanDistanceHeuristic", new SearchOptions(),
+                    "astar", true),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional A* Medium Maze", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "biastar", "ManhattanDistanceHeuristic", new SearchOptions()),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional A* Medium Maze Null Heuristic", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "biastar", null, new SearchOptions()),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional A* trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "biastar", "ManhattanDistanceHeuristic", new SearchOptions()),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional A* Unreachable Goal", ProblemEncodings.PACMAN_UNREACHABLE_GOAL,
+                    "PacmanPositionSearchProblem", "biastar", "ManhattanDistanceHeuristic", new SearchOptions()),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional BFS Medium Maze", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "bibfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional BFS trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "bibfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional BFS Start At Goal", ProblemEncodings.PACMAN_TINY_CORNERS3,
+                    "PacmanPositionSearchProblem", "bibfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Bidirectional BFS Unreachable Goal", ProblemEncodings.PACMAN_UNREACHABLE_GOAL,
+                    "PacmanPositionSearchProblem", "bibfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Iterative Deepening Corners Tiny", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanPositionSearchProblem", "iddfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Iterative Deepening trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "iddfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Iterative Deepening Unreachable Goal", ProblemEncodings.PACMAN_UNREACHABLE_GOAL,
+                    "PacmanPositionSearchProblem", "iddfs", null, new SearchOptions(), "bfs", false),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "IDA* trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "idastar", "ManhattanDistanceHeuristic", new SearchOptions()),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "IDA* trickySearch Transposition Table", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "idastar", "ManhattanDistanceHeuristic", transpositions(64)),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "IDA* Medium Maze Transposition Table", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "idastar", "ManhattanDistanceHeuristic", transpositions(1000)),
+            new PacmanSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "IDA* Corners Tiny", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanCornersProblem", "idastar", "CornersHeuristic", new SearchOptions()),
+            new PacmanSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "IDA* Corners Tiny Transposition Table", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanCornersProblem", "idastar", "CornersHeuristic", transpositions(100)),
+            new PacmanSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "IDA* Unreachable Goal", ProblemEncodings.PACMAN_UNREACHABLE_GOAL,
+                    "PacmanPositionSearchProblem", "idastar", "ManhattanDistanceHeuristic", transpositions(16)),
+            new NodeLimitTest<PacmanPositionSearchState, PacmanAction>(
+                    "Iterative Deepening Node Limit", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanPositionSearchProblem", "iddfs", null, nodeLimit(100)),
+            new NodeLimitTest<PacmanPositionSearchState, PacmanAction>(
+                    "IDA* Node Limit", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "idastar", "ManhattanDistanceHeuristic", nodeLimit(100)),
+            new AnytimeSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "ARA* Medium Maze", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "ManhattanDistanceHeuristic", 5, 1),
+            new AnytimeSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "ARA* Corners Tiny", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanCornersProblem", "CornersHeuristic", 3, 0.5),
+            new AnytimeSearchTest<PacmanFoodSearchState, PacmanAction>(
+                    "ARA* trickySearch", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanFoodSearchProblem", "FoodHeuristic", 3, 0.5),
+            new BeamSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Beam Corners Tiny Position Width 1", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanPositionSearchProblem", "ManhattanDistanceHeuristic", 1),
+            new BeamSearchTest<PacmanPositionSearchState, PacmanAction>(
+                    "Beam Medium Maze Width 4", ProblemEncodings.PACMAN_MEDIUM_MAZE,
+                    "PacmanPositionSearchProblem", "ManhattanDistanceHeuristic", 4),
+            new BeamSearchTest<PacmanWaypointsSearchState, PacmanAction>(
+                    "Beam Corners Tiny Width 2", ProblemEncodings.PACMAN_TINY_CORNERS,
+                    "PacmanCornersProblem", "CornersHeuristic", 2),
+            new BeamSearchTest<PacmanFoodSearchState, PacmanAction>(
+                    "Beam trickySearch Width 10", ProblemEncodings.PACMAN_TRICKY_SEARCH,
+                    "PacmanFoodSearchProblem", "FoodHeuristic", 10),
+    });
+
+    private static SearchOptions threads(int threadCount) {
+        SearchOptions options = new SearchOptions();
+        options.threadCount = threadCount;
+        return options;
+    }
+
+    private static SearchOptions transpositions(int transpositionTableSize) {
+        SearchOptions options = new SearchOptions();
+        options.transpositionTableSize = transpositionTableSize;
+        return options;
+    }
+
+    private static SearchOptions nodeLimit(long nodeLimit) {
+        SearchOptions options = new SearchOptions();
+        options.nodeLimit = nodeLimit;
+        return options;
+    }
+
     public static void main(String[] args) throws Exception {
 
         QuestionSuite[] questionSuites = new QuestionSuite[]{
@@ -1224,7 +1630,9 @@ public class Autograder {
                 Autograder.Q3,
                 Autograder.Q4,
                 Autograder.Q5,
-                Autograder.Q6
+                Autograder.Q6,
+                Autograder.Q7,
+                Autograder.Q8
         };
 
         StringBuilder messageTrace = new StringBuilder();
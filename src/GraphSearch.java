@@ -22,13 +22,17 @@
  */
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 import static java.lang.System.out;
 
 public class GraphSearch<S,A> {
     /**
      *
-     * @param function string describing search strategy: dfs, bfs, greedy and astar
+     * @param function string describing search strategy: dfs, bfs, iddfs, greedy, beam, ucs, astar, pastar, arastar, idastar, biastar, bibfs and jps
      * @param problem search problem instance, for instance, PacmanPositionSearchProblem, PacmanCornersProblem etc
      * @param heuristic can be null, not used for dfs and bfs
      * @param <S> states
@@ -36,21 +40,66 @@ public class GraphSearch<S,A> {
      * @return
      */
     public static <S, A> Solution<S, A> search(String function, SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic) {
+        return search(function, problem, heuristic, new SearchOptions());
+    }
+
+    /**
+     * Same as search(function, problem, heuristic), with explicit limits and settings
+     * for the search procedure.
+     *
+     * @param options limits and settings shared by all strategies, see SearchOptions
+     */
+    public static <S, A> Solution<S, A> search(String function, SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                SearchOptions options) {
         Solution<S, A> solution;
         long start = System.currentTimeMillis();
         switch (function) {
             case "dfs":
-                solution = depthFirstSearch(problem);
+                solution = depthFirstSearch(problem, options);
                 break;
             case "bfs":
-                solution = breadthFirstSearch(problem);
+                solution = breadthFirstSearch(problem, options);
                 break;
             case "greedy":
-                solution = greedySearch(problem, heuristic);
+                solution = greedySearch(problem, heuristic, options);
+                break;
+            case "ucs":
+                solution = uniformCostSearch(problem, options);
                 break;
             case "astar":
-                solution = aStarSearch(problem, heuristic);
+                solution = aStarSearch(problem, heuristic, options);
+                break;
+            case "pastar":
+                solution = parallelAStarSearch(problem, heuristic, options);
+                break;
+            case "iddfs":
+                solution = iterativeDeepeningSearch(problem, options);
                 break;
+            case "beam":
+                solution = beamSearch(problem, heuristic, options);
+                break;
+            case "arastar":
+                solution = anytimeRepairingAStarSearch(problem, heuristic, options);
+                break;
+            case "idastar":
+                solution = iterativeDeepeningAStarSearch(problem, heuristic, options);
+                break;
+            case "biastar":
+                solution = bidirectionalAStarSearch(problem, heuristic, options);
+                break;
+            case "jps":
+                if (problem instanceof PacmanPositionSearchProblem) {
+                    solution = (Solution<S, A>) jumpPointSearch((PacmanPositionSearchProblem) problem,
+                            (SearchHeuristic<PacmanPositionSearchState, PacmanAction>) heuristic, options);
+                    break;
+                }
+                throw new RuntimeException("Jump point search only supports PacmanPositionSearchProblem");
+            case "bibfs":
+                if (problem instanceof PacmanPositionSearchProblem) {
+                    solution = (Solution<S, A>) bidirectionalBreadthFirstSearch((PacmanPositionSearchProblem) problem, options);
+                    break;
+                }
+                throw new RuntimeException("Bidirectional BFS only supports PacmanPositionSearchProblem");
             case "gowest":
                 if (problem instanceof PacmanPositionSearchProblem) {
                     solution = (Solution<S, A>) goWestSearch((PacmanPositionSearchProblem) problem);
@@ -81,98 +130,830 @@ public class GraphSearch<S,A> {
         return new Solution<>(state, actions, cost);
     }
 
-    private static <S, A> Solution<S, A> breadthFirstSearch(SearchProblem<S, A> problem) {
-        out.println("Search using BFS algorithm");
+    /**
+     * Breadth-first search that grows one frontier from the start and one from the goal cell,
+     * always expanding a full layer of the smaller frontier, and stops as soon as they meet.
+     * Moves in a maze are reversible, so the backward search uses the successors as predecessors.
+     *
+     * Since the frontiers are expanded layer by layer, the first cell reached by both searches
+     * lies on a shortest path: when a layer of one side first meets the other side, the latter
+     * cannot have reached any cell closer to the start of the former.
+     * The search works on cell indices, every expanded cell is counted by the problem.
+     */
+    private static Solution<PacmanPositionSearchState, PacmanAction> bidirectionalBreadthFirstSearch(
+            PacmanPositionSearchProblem problem, SearchOptions options) {
+        out.println("Search using bidirectional BFS algorithm");
+
+        Maze maze = problem.getMaze();
+        int startCell = problem.getStartState().cell;
+        int goalCell = problem.getGoalCell();
+        // the cell each cell was reached from, -1 for cells not reached yet
+        int[] forwardParents = new int[maze.getCellCount()];
+        int[] backwardParents = new int[maze.getCellCount()];
+        Arrays.fill(forwardParents, -1);
+        Arrays.fill(backwardParents, -1);
+        forwardParents[startCell] = startCell;
+        backwardParents[goalCell] = goalCell;
+        if (startCell == goalCell) {
+            return bidirectionalSolution(problem, forwardParents, backwardParents, startCell);
+        }
 
-        Util.Queue<Node> frontier =new Util.Queue<>();
-        frontier.push(new Node(problem.getStartState(),new ArrayList(),0));
-        Node<S,A> currentNode = null;
-        while (!frontier.isEmpty()){
-            currentNode =  frontier.pop();
-            System.out.println(currentNode.state);
-            if(problem.isGoalState(currentNode.state)){
-                return new Solution<S,A>(currentNode.state,currentNode.actions,currentNode.pathCost);
+        Util.IntQueue forward = new Util.IntQueue();
+        Util.IntQueue backward = new Util.IntQueue();
+        forward.push(startCell);
+        backward.push(goalCell);
+        SuccessorBuffer<PacmanPositionSearchState, PacmanAction> successors = new SuccessorBuffer<>();
+        long expansions = 0;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            boolean forwardStep = forward.size() <= backward.size();
+            Util.IntQueue frontier = forwardStep ? forward : backward;
+            int[] parents = forwardStep ? forwardParents : backwardParents;
+            int[] otherParents = forwardStep ? backwardParents : forwardParents;
+
+            for (int layerSize = frontier.size(); layerSize > 0; layerSize--) {
+                int cell = frontier.pop();
+                if (expansions++ >= options.nodeLimit) {
+                    out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                    return null;
+                }
+                problem.expand(problem.getState(cell), successors);
+                for (int i = 0; i < successors.size(); i++) {
+                    int nextCell = successors.getNextState(i).cell;
+                    if (parents[nextCell] >= 0)
+                        continue;
+                    parents[nextCell] = cell;
+                    if (otherParents[nextCell] >= 0)
+                        return bidirectionalSolution(problem, forwardParents, backwardParents, nextCell);
+                    frontier.push(nextCell);
+                }
             }
-            if(!problem.visitedSet.contains(currentNode.state)){
-                Collection<SuccessorInfo<S,A>> successorInfos= problem.expand(currentNode.state);
+        }
+        return null;
+    }
+
+    /**
+     * Jump point search: A* on the grid of a PacmanPositionSearchProblem that only expands jump points
+     * and moves between them along straight lines, the cost of a jump is its length.
+     *
+     * Among the shortest paths it only follows canonical ones, which move vertically before they move
+     * horizontally and only turn from a horizontal to a vertical move where a wall forces it. So a node
+     * reached by a vertical move continues vertically or turns east or west, a node reached by a horizontal
+     * move continues horizontally or turns into a forced neighbour: a free cell above (below) whose
+     * counterpart next to the previous cell is a wall.
+     * A horizontal jump stops at the goal and at cells with a forced neighbour, a vertical jump stops
+     * at the goal and at cells from which a horizontal jump finds a jump point.
+     * With an admissible heuristic the cost of the solution equals the one of A*.
+     */
+    private static Solution<PacmanPositionSearchState, PacmanAction> jumpPointSearch(
+            PacmanPositionSearchProblem problem, SearchHeuristic<PacmanPositionSearchState, PacmanAction> heuristic,
+            SearchOptions options) {
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        out.println("Search using jump point search and heuristic " + heuristic);
 
-                for (SuccessorInfo<S,A> s:successorInfos) {
-                    List<A> actions = new ArrayList<>(currentNode.actions);
-                    actions.add(s.action);
-                    frontier.push(new Node(s.nextState,actions, currentNode.pathCost + s.cost ));
+        Maze maze = problem.getMaze();
+        int goalCell = problem.getGoalCell();
+        Util.IndexedHeap<PacmanPositionSearchState, Node<PacmanPositionSearchState, PacmanAction>> frontier =
+                new Util.IndexedHeap<>(node -> node.state, nodesByState(problem));
+        PacmanPositionSearchState startState = problem.getStartState();
+        frontier.push(new Node<>(startState, null, null, 0, heuristicValue(heuristic, startState, problem)));
+        long expansions = 0;
+
+        while (!frontier.isEmpty()) {
+            Node<PacmanPositionSearchState, PacmanAction> currentNode = frontier.pop();
+            int cell = currentNode.state.cell;
+            if (cell == goalCell) {
+                List<PacmanAction> actions = new ArrayList<>();
+                for (Node<PacmanPositionSearchState, PacmanAction> node = currentNode; node.parent != null; node = node.parent) {
+                    for (int i = (int) (node.pathCost - node.parent.pathCost); i > 0; i--) {
+                        actions.add(node.action);
+                    }
                 }
+                Collections.reverse(actions);
+                return new Solution<>(currentNode.state, actions, currentNode.pathCost);
+            }
+            if (expansions++ >= options.nodeLimit) {
+                out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                return null;
             }
+            problem.doBookKeeping(currentNode.state);
+
+            PacmanAction arrival = currentNode.action;
+            for (PacmanAction direction : JUMP_DIRECTIONS) {
+                if (arrival != null && direction != arrival) {
+                    boolean horizontalArrival = arrival == PacmanAction.EAST || arrival == PacmanAction.WEST;
+                    boolean vertical = direction == PacmanAction.NORTH || direction == PacmanAction.SOUTH;
+                    if (direction == arrival.reverse())
+                        continue;
+                    if (horizontalArrival && !(vertical && isForced(maze, maze.getNeighbourCell(cell, arrival.reverse()), cell, direction)))
+                        continue;
+                }
+                int jumpCell = direction == PacmanAction.NORTH || direction == PacmanAction.SOUTH
+                        ? jumpVertically(maze, cell, direction, goalCell)
+                        : jumpHorizontally(maze, cell, direction, goalCell);
+                if (jumpCell < 0)
+                    continue;
 
+                PacmanPositionSearchState jumpState = problem.getState(jumpCell);
+                if (problem.isExpanded(jumpState))
+                    continue;
+                double pathCost = currentNode.pathCost
+                        + maze.getCellCoordinate(cell).manhattanDistance(maze.getCellCoordinate(jumpCell));
+                Node<PacmanPositionSearchState, PacmanAction> queuedNode = frontier.get(jumpState);
+                if (queuedNode != null) {
+                    if (pathCost < queuedNode.pathCost) {
+                        queuedNode.setParent(currentNode, direction, pathCost, pathCost + queuedNode.heuristic);
+                        frontier.decreaseKey(queuedNode);
+                    }
+                    continue;
+                }
+                frontier.push(new Node<>(jumpState, currentNode, direction, pathCost,
+                                         heuristicValue(heuristic, jumpState, problem)));
+            }
         }
         return null;
     }
 
-    private static <S, A> Solution<S, A> depthFirstSearch(SearchProblem<S, A> problem) {
+    private static final PacmanAction[] JUMP_DIRECTIONS = new PacmanAction[]{PacmanAction.NORTH, PacmanAction.SOUTH,
+            PacmanAction.EAST, PacmanAction.WEST};
+
+    /**
+     * @return whether, after a horizontal move from previousCell to cell, the vertical neighbour of cell in
+     * direction is only reached on a shortest path by turning at cell
+     */
+    private static boolean isForced(Maze maze, int previousCell, int cell, PacmanAction direction) {
+        return maze.isLegalAction(cell, direction) && !maze.isLegalAction(previousCell, direction);
+    }
+
+    /**
+     * @return the first jump point east or west of cell, or -1 if the jump runs into a wall
+     */
+    private static int jumpHorizontally(Maze maze, int cell, PacmanAction direction, int goalCell) {
+        while (maze.isLegalAction(cell, direction)) {
+            int previousCell = cell;
+            cell = maze.getNeighbourCell(cell, direction);
+            if (cell == goalCell
+                    || isForced(maze, previousCell, cell, PacmanAction.NORTH)
+                    || isForced(maze, previousCell, cell, PacmanAction.SOUTH))
+                return cell;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first jump point north or south of cell, or -1 if the jump runs into a wall
+     */
+    private static int jumpVertically(Maze maze, int cell, PacmanAction direction, int goalCell) {
+        while (maze.isLegalAction(cell, direction)) {
+            cell = maze.getNeighbourCell(cell, direction);
+            if (cell == goalCell
+                    || jumpHorizontally(maze, cell, PacmanAction.EAST, goalCell) >= 0
+                    || jumpHorizontally(maze, cell, PacmanAction.WEST, goalCell) >= 0)
+                return cell;
+        }
+        return -1;
+    }
+
+    /**
+     * Joins the path from the start to 'meetingCell' and the path from 'meetingCell' to the goal.
+     */
+    private static Solution<PacmanPositionSearchState, PacmanAction> bidirectionalSolution(
+            PacmanPositionSearchProblem problem, int[] forwardParents, int[] backwardParents, int meetingCell) {
+        Maze maze = problem.getMaze();
+        List<PacmanAction> actions = new ArrayList<>();
+        for (int cell = meetingCell; forwardParents[cell] != cell; cell = forwardParents[cell]) {
+            actions.add(actionBetween(maze, forwardParents[cell], cell));
+        }
+        Collections.reverse(actions);
+        for (int cell = meetingCell; backwardParents[cell] != cell; cell = backwardParents[cell]) {
+            actions.add(actionBetween(maze, cell, backwardParents[cell]));
+        }
+
+        PacmanPositionSearchState state = problem.getStartState();
+        double cost = 0;
+        for (PacmanAction action : actions) {
+            cost += problem.getCost(state, action);
+            state = problem.getSuccessor(state, action);
+        }
+        return new Solution<>(state, actions, cost);
+    }
+
+    private static PacmanAction actionBetween(Maze maze, int fromCell, int toCell) {
+        for (int slot = maze.getNeighbourStart(fromCell); slot < maze.getNeighbourEnd(fromCell); slot++) {
+            if (maze.getNeighbourCell(slot) == toCell)
+                return maze.getNeighbourAction(slot);
+        }
+        throw new RuntimeException("Cells " + fromCell + " and " + toCell + " are not adjacent");
+    }
+
+    private static <S, A> Solution<S, A> breadthFirstSearch(SearchProblem<S, A> problem, SearchOptions options) {
+        out.println("Search using BFS algorithm");
+
+        SearchConfig<S, A> config = new SearchConfig<>(new Util.ArrayQueue<>(), problem, options);
+        return graphSearch(problem, config);
+    }
+
+    private static <S, A> Solution<S, A> depthFirstSearch(SearchProblem<S, A> problem, SearchOptions options) {
         out.println("Search using DFS algorithm");
 
-        Util.Stack<Node> frontier =new Util.Stack<>();
-        frontier.push(new Node(problem.getStartState(),new ArrayList(),0));
-        Node<S,A> currentNode = null;
-        while (!frontier.isEmpty()){
-            currentNode =  frontier.pop();
-            if(problem.isGoalState(currentNode.state)){
-                return new Solution<S,A>(currentNode.state,currentNode.actions,currentNode.pathCost);
-            }
-            if(!problem.visitedSet.contains(currentNode.state)){
-                Collection<SuccessorInfo<S,A>> successorInfos= problem.expand(currentNode.state);
+        SearchConfig<S, A> config = new SearchConfig<>(new Util.ArrayStack<>(), problem, options);
+        return graphSearch(problem, config);
+    }
+
+    private static <S, A> Solution<S, A> greedySearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                      SearchOptions options) {
+        out.println("Search using Greedy algorithm and heuristic " + heuristic);
+
+        SearchConfig<S, A> config = new SearchConfig<>(new Util.PriorityQueue<>(), problem, options);
+        config.heuristic = heuristic;
+        config.pathCostWeight = 0;
+        config.testGoalsOnExpansion("greedy");
+        return graphSearch(problem, config);
+    }
+
+    private static <S, A> Solution<S, A> uniformCostSearch(SearchProblem<S, A> problem, SearchOptions options) {
+        out.println("Search using uniform-cost search algorithm");
+
+        SearchConfig<S, A> config = new SearchConfig<>(createPriorityFrontier(problem, null, options), problem, options);
+        config.testGoalsOnExpansion("ucs");
+        return graphSearch(problem, config);
+    }
+
+    private static <S, A> Solution<S, A> aStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                     SearchOptions options) {
+        out.println("Search using A* algorithm and heuristic " + heuristic);
+
+        SearchConfig<S, A> config = new SearchConfig<>(createPriorityFrontier(problem, heuristic, options), problem, options);
+        config.heuristic = heuristic;
+        config.testGoalsOnExpansion("astar");
+        return graphSearch(problem, config);
+    }
+
+    /**
+     * Hash-distributed A* (HDA*) on options.threadCount threads, see ParallelAStarSearch.
+     * The problem and the heuristic are shared by the threads, so they must be safe to use concurrently;
+     * the pacman problems and heuristics are. Expanded states are only counted, not recorded.
+     */
+    private static <S, A> Solution<S, A> parallelAStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                             SearchOptions options) {
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        if (heuristic instanceof CachedHeuristic) {
+            throw new RuntimeException("Parallel A* does not support CachedHeuristic, which is not thread-safe");
+        }
+        int threadCount = Math.max(1, options.threadCount);
+        out.println("Search using parallel A* algorithm with " + threadCount + " threads and heuristic " + heuristic);
+
+        Solution<S, A> solution = new ParallelAStarSearch<>(problem, heuristic, threadCount, options.nodeLimit).search();
+        if (solution == null && problem.getExpandedCount() >= options.nodeLimit) {
+            out.println("Node limit of " + options.nodeLimit + " expansions reached");
+        }
+        return solution;
+    }
+
+    /**
+     * Beam search: a breadth-first search that keeps only the options.beamWidth nodes of least f = g + h
+     * in every layer. The successors of a layer are collected with their f in a primitive array and
+     * the best ones are selected by Util.selectLeast, without sorting the layer. Duplicate states within
+     * a layer are merged, keeping the cheaper path. The goal test is applied when nodes are generated.
+     *
+     * The successors of a layer take memory proportional to the beam width times the branching factor.
+     * Expanded states are not generated again (see SearchProblem.isExpanded), which keeps the beam from
+     * wandering around plateaus of the heuristic; there are at most beam width times depth of them, as many as
+     * nodes on the paths of the beam. The search is neither complete nor optimal, it gives up when the beam
+     * becomes empty or the node limit is reached.
+     */
+    private static <S, A> Solution<S, A> beamSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                    SearchOptions options) {
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        int beamWidth = options.beamWidth;
+        out.println("Search using beam search with width " + beamWidth + " and heuristic " + heuristic);
+
+        S startState = problem.getStartState();
+        Node<S, A> startNode = new Node<>(startState, null, null, 0, heuristicValue(heuristic, startState, problem));
+        if (problem.isGoalState(startState)) {
+            return startNode.toSolution();
+        }
+
+        Object[] beam = new Object[]{startNode};
+        int beamSize = 1;
+        Object[] candidates = new Object[16];
+        double[] priorities = new double[16];
+        Map<S, Integer> candidateIndices = new HashMap<>();
+        SuccessorBuffer<S, A> successors = new SuccessorBuffer<>();
+        long expansions = 0;
+
+        while (beamSize > 0) {
+            int candidateCount = 0;
+            candidateIndices.clear();
+            for (int b = 0; b < beamSize; b++) {
+                @SuppressWarnings("unchecked")
+                Node<S, A> currentNode = (Node<S, A>) beam[b];
+                if (expansions++ >= options.nodeLimit) {
+                    out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                    return null;
+                }
+                problem.expand(currentNode.state, successors);
 
-                for (SuccessorInfo<S,A> s:successorInfos) {
-                    List<A> actions = new ArrayList<>(currentNode.actions);
-                    actions.add(s.action);
-                    frontier.push(new Node(s.nextState,actions, currentNode.pathCost + s.cost ));
+                for (int i = 0; i < successors.size(); i++) {
+                    S nextState = successors.getNextState(i);
+                    if (problem.isExpanded(nextState))
+                        continue;
+                    double pathCost = currentNode.pathCost + successors.getCost(i);
+                    Integer index = candidateIndices.get(nextState);
+                    if (index != null) {
+                        @SuppressWarnings("unchecked")
+                        Node<S, A> candidate = (Node<S, A>) candidates[index];
+                        if (pathCost < candidate.pathCost) {
+                            Node<S, A> nextNode = new Node<>(nextState, currentNode, successors.getAction(i),
+                                                             pathCost, candidate.heuristic);
+                            candidates[index] = nextNode;
+                            priorities[index] = nextNode.priority;
+                        }
+                        continue;
+                    }
+
+                    Node<S, A> nextNode = new Node<>(nextState, currentNode, successors.getAction(i), pathCost,
+                                                     heuristicValue(heuristic, nextState, problem));
+                    if (problem.isGoalState(nextState)) {
+                        return nextNode.toSolution();
+                    }
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, 2 * candidateCount);
+                        priorities = Arrays.copyOf(priorities, 2 * candidateCount);
+                    }
+                    candidateIndices.put(nextState, candidateCount);
+                    candidates[candidateCount] = nextNode;
+                    priorities[candidateCount] = nextNode.priority;
+                    candidateCount++;
                 }
             }
 
+            beamSize = Math.min(beamWidth, candidateCount);
+            Util.selectLeast(priorities, candidates, candidateCount, beamSize);
+            if (beam.length < beamSize) {
+                beam = new Object[beamSize];
+            }
+            System.arraycopy(candidates, 0, beam, 0, beamSize);
+            Arrays.fill(candidates, 0, candidateCount, null);
         }
         return null;
+    }
+
+    /**
+     * ARA* (anytime repairing A*): a series of weighted A* searches with priority g + w * h, starting with
+     * w = options.initialWeight and decreasing it by options.weightDecrement down to 1.
+     * Each search stops as soon as the best goal found has g no greater than the least priority in the frontier,
+     * its solution costs at most w times the optimal cost (for an admissible heuristic).
+     *
+     * Search effort is reused: nodes keep their g across searches, states whose g improves after they have been
+     * expanded in the current search are put aside (INCONS) and only return to the frontier in the next search,
+     * whose frontier is then reordered for the new weight.
+     *
+     * Every improved solution is printed and passed to options.solutionListener together with its bound
+     * min(w, cost / min(g + h)) over the frontier and INCONS. The search returns the best solution found once
+     * the bound reaches 1, the time limit options.timeLimit expires or the node limit is reached.
+     */
+    private static <S, A> Solution<S, A> anytimeRepairingAStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                                     SearchOptions options) {
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        out.println("Search using ARA* algorithm and heuristic " + heuristic);
+
+        long deadline = options.timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + options.timeLimit;
+        double weight = Math.max(1, options.initialWeight);
+        Map<S, Node<S, A>> nodes = new HashMap<>();
+        Util.IndexedHeap<S, Node<S, A>> frontier = new Util.IndexedHeap<>(node -> node.state, nodesByState(problem));
+        Set<S> closedSet = new HashSet<>();
+        Map<S, Node<S, A>> inconsistentNodes = new HashMap<>();
+
+        S startState = problem.getStartState();
+        double startHeuristic = heuristicValue(heuristic, startState, problem);
+        Node<S, A> startNode = new Node<>(startState, null, null, 0, startHeuristic, weight * startHeuristic);
+        nodes.put(startState, startNode);
+        frontier.push(startNode);
+        Node<S, A> goalNode = problem.isGoalState(startState) ? startNode : null;
+
+        Solution<S, A> solution = null;
+        SuccessorBuffer<S, A> successors = new SuccessorBuffer<>();
+        long expansions = 0;
+        while (true) {
+            while (!frontier.isEmpty() && (goalNode == null || goalNode.pathCost > frontier.peek().priority)) {
+                if (System.currentTimeMillis() >= deadline) {
+                    out.println("Time limit of " + options.timeLimit + "ms reached");
+                    return solution;
+                }
+                if (expansions++ >= options.nodeLimit) {
+                    out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                    return solution;
+                }
+
+                Node<S, A> currentNode = frontier.pop();
+                closedSet.add(currentNode.state);
+                problem.expand(currentNode.state, successors);
+                for (int i = 0; i < successors.size(); i++) {
+                    S nextState = successors.getNextState(i);
+                    double pathCost = currentNode.pathCost + successors.getCost(i);
+                    Node<S, A> nextNode = nodes.get(nextState);
+                    if (nextNode == null) {
+                        double h = heuristicValue(heuristic, nextState, problem);
+                        nextNode = new Node<>(nextState, currentNode, successors.getAction(i), pathCost, h, pathCost + weight * h);
+                        nodes.put(nextState, nextNode);
+                        frontier.push(nextNode);
+                    } else if (pathCost < nextNode.pathCost) {
+                        nextNode.setParent(currentNode, successors.getAction(i), pathCost, pathCost + weight * nextNode.heuristic);
+                        if (frontier.contains(nextState))
+                            frontier.decreaseKey(nextNode);
+                        else if (closedSet.contains(nextState))
+                            inconsistentNodes.put(nextState, nextNode);
+                        else
+                            frontier.push(nextNode);
+                    } else {
+                        continue;
+                    }
+                    if ((goalNode == null || pathCost < goalNode.pathCost) && problem.isGoalState(nextState)) {
+                        goalNode = nextNode;
+                    }
+                }
+            }
+            if (goalNode == null) {
+                return null;
+            }
+
+            double lowerBound = Double.POSITIVE_INFINITY;
+            for (Node<S, A> node : frontier.items()) {
+                lowerBound = Math.min(lowerBound, node.pathCost + node.heuristic);
+            }
+            for (Node<S, A> node : inconsistentNodes.values()) {
+                lowerBound = Math.min(lowerBound, node.pathCost + node.heuristic);
+            }
+            // parents of expanded nodes may have improved since, so the path can be cheaper than the g of the goal
+            List<A> actions = goalNode.getActions();
+            double cost = 0;
+            S state = startState;
+            for (A action : actions) {
+                cost += problem.getCost(state, action);
+                state = problem.getSuccessor(state, action);
+            }
+            double bound = cost <= lowerBound ? 1 : Math.min(weight, cost / lowerBound);
+            if (solution == null || cost < solution.pathCost) {
+                solution = new Solution<>(goalNode.state, actions, cost);
+                out.println("Solution of cost " + solution.pathCost + " found with weight " + weight
+                        + ", at most " + bound + " times the optimal cost");
+                if (options.solutionListener != null) {
+                    options.solutionListener.improvedSolution(solution, bound);
+                }
+            }
+            if (bound <= 1) {
+                return solution;
+            }
+
+            weight = Math.max(1, weight - options.weightDecrement);
+            for (Node<S, A> node : inconsistentNodes.values()) {
+                frontier.push(node);
+            }
+            inconsistentNodes.clear();
+            for (Node<S, A> node : frontier.items()) {
+                node.priority = node.pathCost + weight * node.heuristic;
+            }
+            frontier.heapify();
+            closedSet.clear();
+        }
+    }
 
+    /**
+     * Iterative deepening DFS: depth-first searches with the depth limit 0, 1, 2, ... until a goal is found.
+     * The solution has the least number of actions, like the one of BFS, which is optimal for unit costs.
+     * The search stops without a solution once an iteration has not been cut off by its limit.
+     *
+     * Like IDA*, only the current path is kept and states already on it are skipped, expanded states
+     * are counted but not recorded by the problem.
+     */
+    private static <S, A> Solution<S, A> iterativeDeepeningSearch(SearchProblem<S, A> problem, SearchOptions options) {
+        out.println("Search using iterative deepening DFS algorithm");
 
+        boolean recordVisitedStates = problem.recordVisitedStates;
+        problem.setRecordVisitedStates(false);
+        try {
+            BoundedDepthFirstSearch<S, A> search = new BoundedDepthFirstSearch<>(problem, null, null, options.nodeLimit);
+            for (int limit = 0; ; limit++) {
+                long iterationStart = problem.getExpandedCount();
+                Solution<S, A> solution = search.search(Double.POSITIVE_INFINITY, limit);
+                if (search.nodeLimitReached) {
+                    out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                    return null;
+                }
+                out.println("Depth limit " + limit + ": " + (problem.getExpandedCount() - iterationStart) + " expansions");
+                if (solution != null || !search.depthCutOff) {
+                    return solution;
+                }
+            }
+        } finally {
+            problem.setRecordVisitedStates(recordVisitedStates);
+        }
     }
 
-    private static <S, A> Solution<S, A> greedySearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic) {
-        out.println("Search using Greedy algorithm and heuristic " + heuristic);
+    /**
+     * IDA*: depth-first searches bounded by f = g + h, starting with the bound h(start) and raising it
+     * to the least f that exceeded the previous bound, until a goal is found within the bound.
+     * The first solution found is optimal for an admissible heuristic.
+     *
+     * Only the current path is kept (with the successors of each node on it), so memory is linear in
+     * the depth of the search; expanded states are counted but not recorded by the problem.
+     * States already on the current path are skipped. With options.transpositionTableSize > 0,
+     * up to that many states are remembered with the least g they were reached with in the current
+     * iteration, and reaching them again with a g that is not smaller is pruned.
+     */
+    private static <S, A> Solution<S, A> iterativeDeepeningAStarSearch(SearchProblem<S, A> problem,
+                                                                       SearchHeuristic<S, A> heuristic,
+                                                                       SearchOptions options) {
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        out.println("Search using IDA* algorithm and heuristic " + heuristic);
 
-        //TODO: YOUR CODE HERE
-        throw new RuntimeException("Not Implemented");
+        boolean recordVisitedStates = problem.recordVisitedStates;
+        problem.setRecordVisitedStates(false);
+        try {
+            TranspositionTable<S> transpositions = options.transpositionTableSize > 0
+                    ? new TranspositionTable<>(problem, options.transpositionTableSize) : null;
+            BoundedDepthFirstSearch<S, A> search = new BoundedDepthFirstSearch<>(problem, heuristic, transpositions,
+                                                                                 options.nodeLimit);
+            double bound = heuristicValue(heuristic, problem.getStartState(), problem);
+            while (bound < Double.POSITIVE_INFINITY) {
+                long iterationStart = problem.getExpandedCount();
+                Solution<S, A> solution = search.search(bound, Integer.MAX_VALUE);
+                if (search.nodeLimitReached) {
+                    out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                    return null;
+                }
+                out.println("Bound " + bound + ": " + (problem.getExpandedCount() - iterationStart) + " expansions");
+                if (solution != null) {
+                    return solution;
+                }
+                bound = search.nextBound;
+            }
+            return null;
+        } finally {
+            problem.setRecordVisitedStates(recordVisitedStates);
+        }
     }
 
-    private static <S, A> Solution<S, A> aStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic) {
-        out.println("Search using A* algorithm and heuristic " + heuristic);
-        Util.Frontier<Node<S,A>> frontier = new Util.PriorityQueue<Node<S,A>>(
-                (node1, node2) -> Double.compare(heuristic.value(node1.state,problem)+node1.pathCost,heuristic.value(node2.state,problem)+node2.pathCost)
-        );
-        frontier.push(new Node(problem.getStartState(),new ArrayList(),0));
-        Node<S,A> currentNode = null;
-        while (!frontier.isEmpty()){
-            currentNode =  frontier.pop();
-            if(problem.isGoalState(currentNode.state)){
-                return new Solution<S,A>(currentNode.state,currentNode.actions,currentNode.pathCost);
+    /**
+     * Front-to-end bidirectional A*: a forward A* from the start state with heuristic.value and a backward A*
+     * from the goal states with heuristic.reverseValue. The direction with fewer open nodes is expanded next.
+     * Whenever a state is reached by both searches, the joined path is a candidate of cost U.
+     *
+     * Any cheaper path has to pass through open nodes of both searches, so with admissible heuristics its cost is
+     * at least max(fmin forward, fmin backward, gmin forward + gmin backward). The search stops once U is not
+     * above that bound, and then returns the optimal U. States are reopened whenever their g improves,
+     * so the heuristics do not need to be consistent.
+     */
+    private static <S, A> Solution<S, A> bidirectionalAStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                                                  SearchOptions options) {
+        if (!(problem instanceof BidirectionalSearchProblem)) {
+            throw new RuntimeException("Bidirectional A* requires a BidirectionalSearchProblem, got " + problem.getClass().getName());
+        }
+        if (heuristic == null) {
+            heuristic = new NullHeuristic<>();
+        }
+        out.println("Search using bidirectional A* algorithm and heuristic " + heuristic);
+
+        BidirectionalSearchProblem<S, A> reversibleProblem = (BidirectionalSearchProblem<S, A>) problem;
+        BidirectionalFrontier<S, A> forward = new BidirectionalFrontier<>(true);
+        BidirectionalFrontier<S, A> backward = new BidirectionalFrontier<>(false);
+        // the cheapest path found so far joins these two nodes
+        double bestCost = Double.POSITIVE_INFINITY;
+        Node<S, A> forwardMeeting = null;
+        Node<S, A> backwardMeeting = null;
+
+        S startState = problem.getStartState();
+        forward.add(new Node<>(startState, null, null, 0, heuristicValue(heuristic, startState, problem)));
+        for (S goalState : reversibleProblem.getGoalStates()) {
+            problem.heuristicCount++;
+            backward.add(new Node<>(goalState, null, null, 0, heuristic.reverseValue(goalState, problem)));
+            if (goalState.equals(startState)) {
+                bestCost = 0;
+                forwardMeeting = forward.get(startState);
+                backwardMeeting = backward.get(goalState);
+            }
+        }
+
+        SuccessorBuffer<S, A> successors = new SuccessorBuffer<>();
+        long expansions = 0;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            double lowerBound = Math.max(Math.max(forward.minPriority(), backward.minPriority()),
+                                         forward.minPathCost() + backward.minPathCost());
+            if (bestCost <= lowerBound) {
+                break;
+            }
+            if (expansions++ >= options.nodeLimit) {
+                out.println("Node limit of " + options.nodeLimit + " expansions reached");
+                return null;
+            }
+
+            BidirectionalFrontier<S, A> side = forward.size() <= backward.size() ? forward : backward;
+            BidirectionalFrontier<S, A> otherSide = side == forward ? backward : forward;
+            Node<S, A> currentNode = side.pop();
+            if (side.isForward) {
+                problem.expand(currentNode.state, successors);
+            } else {
+                reversibleProblem.expandReverse(currentNode.state, successors);
             }
-            if(!problem.visitedSet.contains(currentNode.state)){
-                Collection<SuccessorInfo<S,A>> successorInfos= problem.expand(currentNode.state);
 
-                for (SuccessorInfo<S,A> s:successorInfos) {
-                    List<A> actions = new ArrayList<>(currentNode.actions);
-                    actions.add(s.action);
-                    frontier.push(new Node(s.nextState,actions, currentNode.pathCost + s.cost ));
+            for (int i = 0; i < successors.size(); i++) {
+                S nextState = successors.getNextState(i);
+                double pathCost = currentNode.pathCost + successors.getCost(i);
+                Node<S, A> reachedNode = side.get(nextState);
+                if (reachedNode != null && reachedNode.pathCost <= pathCost) {
+                    continue;
+                }
+
+                double h;
+                if (reachedNode != null) {
+                    h = reachedNode.heuristic;
+                } else if (side.isForward) {
+                    h = heuristicValue(heuristic, nextState, problem);
+                } else {
+                    problem.heuristicCount++;
+                    h = heuristic.reverseValue(nextState, problem);
+                }
+                Node<S, A> nextNode = new Node<>(nextState, currentNode, successors.getAction(i), pathCost, h);
+                side.add(nextNode);
+
+                Node<S, A> otherNode = otherSide.get(nextState);
+                if (otherNode != null && pathCost + otherNode.pathCost < bestCost) {
+                    bestCost = pathCost + otherNode.pathCost;
+                    forwardMeeting = side.isForward ? nextNode : otherNode;
+                    backwardMeeting = side.isForward ? otherNode : nextNode;
                 }
             }
+        }
+
+        if (forwardMeeting == null) {
+            return null;
+        }
+        // backward nodes point towards a goal state, their actions lead from the node to its parent
+        List<A> actions = forwardMeeting.getActions();
+        Node<S, A> node = backwardMeeting;
+        for (; node.parent != null; node = node.parent) {
+            actions.add(node.action);
+        }
+        return new Solution<>(node.state, actions, bestCost);
+    }
+
+    /**
+     * Creates the frontier for uniform-cost search and A*, ordered by f = g + h.
+     * With options.priorityFrontier set to "auto", a bucket queue is used when the problem has integer costs
+     * and the heuristic (if any) is integral, so that all f-values are integers, unless the heuristic gives the start
+     * state its value for states that cannot reach a goal (see SearchHeuristic.unreachableValue). Otherwise a radix heap is used
+     * when the f-values of popped nodes never decrease, that is, for uniform-cost search and A* with
+     * a consistent heuristic, and a heap in the remaining cases.
+     */
+    private static <S, A> Util.Frontier<Node<S, A>> createPriorityFrontier(SearchProblem<S, A> problem,
+                                                                          SearchHeuristic<S, A> heuristic,
+                                                                          SearchOptions options) {
+        String frontier = options.priorityFrontier;
+        if (frontier.equals("auto")) {
+            boolean integerPriorities = problem.hasIntegerCosts() && (heuristic == null || heuristic.isIntegral());
+            if (integerPriorities && heuristic != null) {
+                // if no goal can be reached, the heuristic may give every state a value far above the path costs,
+                // which only spreads the items over many buckets
+                integerPriorities = heuristic.value(problem.getStartState(), problem) < heuristic.unreachableValue(problem);
+            }
+            boolean monotonePriorities = heuristic == null || heuristic.isConsistent();
+            frontier = integerPriorities ? "bucket" : monotonePriorities ? "radix" : "heap";
+        }
+        switch (frontier) {
+            case "heap":
+                return new Util.IndexedHeap<>(node -> node.state, nodesByState(problem));
+            case "bucket":
+                return new Util.BucketQueue<>(node -> node.state, nodesByState(problem),
+                                              GraphSearch::integerPriority, GraphSearch::integerHeuristic);
+            case "radix":
+                return new Util.RadixHeap<>(node -> node.state, nodesByState(problem), node -> node.priority);
+            default:
+                throw new RuntimeException("Unknown frontier: " + frontier);
+        }
+    }
+
+    /**
+     * The nodes of a frontier by state, in an array indexed by the state index if the problem has one
+     */
+    private static <S, A> Util.KeyedItems<S, Node<S, A>> nodesByState(SearchProblem<S, A> problem) {
+        if (problem.getStateIndexBound() > 0) {
+            return new Util.KeyedItems<>(problem::getStateIndex, problem.getStateIndexBound());
+        }
+        return new Util.KeyedItems<>();
+    }
+
+    private static int integerPriority(Node<?, ?> node) {
+        int priority = (int) node.priority;
+        if (priority != node.priority) {
+            throw new RuntimeException("Bucket queue frontier requires integer priorities, got " + node.priority);
+        }
+        return priority;
+    }
+
+    /**
+     * Ties in the bucket queue are broken by h, which among nodes of equal f prefers the deeper one
+     * like Node.compareTo does.
+     */
+    private static int integerHeuristic(Node<?, ?> node) {
+        return (int) node.heuristic;
+    }
+
+    /**
+     * The graph search procedure shared by all strategies. The strategy is determined by
+     * the frontier and, for informed search, by the heuristic and the weights of g and h
+     * in the priority of a node (see SearchConfig).
+     *
+     * States in the closed set are neither expanded again nor pushed to the frontier.
+     * If the frontier is a Util.KeyedFrontier, every state is in the frontier at most once:
+     * when a cheaper path to a queued state is found, its node is updated and its key decreased.
+     *
+     * @return the solution, or null if there is none or the node limit was reached
+     */
+    private static <S, A> Solution<S, A> graphSearch(SearchProblem<S, A> problem, SearchConfig<S, A> config) {
+        Util.Frontier<Node<S, A>> frontier = config.frontier;
+        Util.ClosedSet<S> closedSet = config.closedSet;
+        Util.KeyedFrontier<S, Node<S, A>> keyedFrontier =
+                frontier instanceof Util.KeyedFrontier ? (Util.KeyedFrontier<S, Node<S, A>>) frontier : null;
+        boolean goalTestOnGeneration = config.goalTestOnGeneration;
+        SuccessorBuffer<S, A> successors = new SuccessorBuffer<>();
+        long expansions = 0;
+
+        Node<S, A> startNode = createNode(problem, config, problem.getStartState(), null, null, 0);
+        if (goalTestOnGeneration && problem.isGoalState(startNode.state)) {
+            return startNode.toSolution();
+        }
+        frontier.push(startNode);
+
+        while (!frontier.isEmpty()) {
+            Node<S, A> currentNode = frontier.pop();
+            if (!goalTestOnGeneration && problem.isGoalState(currentNode.state)) {
+                return currentNode.toSolution();
+            }
+            if (closedSet.contains(currentNode.state)) {
+                continue;
+            }
+            if (expansions++ >= config.nodeLimit) {
+                out.println("Node limit of " + config.nodeLimit + " expansions reached");
+                return null;
+            }
 
+            closedSet.add(currentNode.state);
+            problem.expand(currentNode.state, successors);
+            for (int i = 0; i < successors.size(); i++) {
+                S nextState = successors.getNextState(i);
+                if (closedSet.contains(nextState)) {
+                    continue;
+                }
+                double pathCost = currentNode.pathCost + successors.getCost(i);
+                if (keyedFrontier != null) {
+                    Node<S, A> queuedNode = keyedFrontier.get(nextState);
+                    if (queuedNode != null) {
+                        if (pathCost < queuedNode.pathCost) {
+                            queuedNode.setParent(currentNode, successors.getAction(i), pathCost,
+                                    config.pathCostWeight * pathCost + config.heuristicWeight * queuedNode.heuristic);
+                            keyedFrontier.decreaseKey(queuedNode);
+                        }
+                        continue;
+                    }
+                }
+                Node<S, A> node = createNode(problem, config, nextState, currentNode, successors.getAction(i), pathCost);
+                if (goalTestOnGeneration && problem.isGoalState(node.state)) {
+                    return node.toSolution();
+                }
+                frontier.push(node);
+            }
         }
         return null;
+    }
 
+    private static <S, A> Node<S, A> createNode(SearchProblem<S, A> problem, SearchConfig<S, A> config,
+                                                S state, Node<S, A> parent, A action, double pathCost) {
+        if (config.heuristic == null) {
+            return new Node<>(state, parent, action, pathCost);
+        }
+        double h = heuristicValue(config.heuristic, state, problem);
+        return new Node<>(state, parent, action, pathCost, h,
+                          config.pathCostWeight * pathCost + config.heuristicWeight * h);
     }
 
-    private static <S, A> Solution<S, A> graphSearch(SearchProblem<S, A> problem, Util.Frontier<Node<S,A>> frontier, SearchHeuristic<S, A> heuristic) {
-        // You could also implement a single graphSearch function
-        // that all other search algorithm call with appropriate parameters.
-        // But it is not required to do so.
-        throw new RuntimeException("Not Implemented");
+    /**
+     * Evaluates the heuristic and counts the evaluation, so that the number of
+     * heuristic calls can be reported next to the expanded count.
+     */
+    static <S, A> double heuristicValue(SearchHeuristic<S, A> heuristic, S state, SearchProblem<S, A> problem) {
+        problem.heuristicCount++;
+        return heuristic.value(state, problem);
     }
 
     public static <S, A> void printSearchInfo(SearchProblem<S, A> searchProblem,
@@ -186,6 +967,8 @@ public class GraphSearch<S,A> {
             out.println("No solution found in " + (double) runtime / 1000 + "s");
         }
         out.println("Expanded count " + searchProblem.getExpandedCount());
+        if (searchProblem.getHeuristicCount() > 0)
+            out.println("Heuristic evaluations " + searchProblem.getHeuristicCount());
         out.println("");
     }
 }
@@ -193,24 +976,93 @@ public class GraphSearch<S,A> {
 /**
  * You might want to implement this data structure to represent nodes of a search tree.
  * You could store objects of this class in the frontier.
+ *
+ * A node only keeps a reference to its parent and the action that led to it,
+ * so generating a successor is O(1) regardless of the depth of the node.
+ * The action sequence is reconstructed once, when a goal node is reached.
  */
-class Node<S, A> implements Comparable<Node<S, A>> {
-
+class Node<S, A> implements Comparable<Node<S, A>>, Util.HeapElement {
 
     public S state;
-    public List<A> actions;
+    public Node<S, A> parent;
+    public A action;
     double pathCost;
+    /**
+     * h and the priority (f = g + h for A*) are computed once when the node is generated,
+     * the frontier then compares the cached primitive values.
+     */
+    double heuristic;
+    double priority;
+    int depth;
+    int heapIndex = -1;
+
+    public Node(S state, Node<S, A> parent, A action, double pathCost) {
+        this(state, parent, action, pathCost, 0);
+    }
+
+    public Node(S state, Node<S, A> parent, A action, double pathCost, double heuristic) {
+        this(state, parent, action, pathCost, heuristic, pathCost + heuristic);
+    }
 
-    public Node(S state, List<A> actions,double pathCost) {
+    public Node(S state, Node<S, A> parent, A action, double pathCost, double heuristic, double priority) {
         this.state = state;
-        this.actions = actions;
+        this.parent = parent;
+        this.action = action;
+        this.pathCost = pathCost;
+        this.heuristic = heuristic;
+        this.priority = priority;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    /**
+     * Replaces the path to the state of this node by a cheaper one.
+     * Only valid as long as the node has not been expanded.
+     */
+    void setParent(Node<S, A> parent, A action, double pathCost, double priority) {
+        this.parent = parent;
+        this.action = action;
         this.pathCost = pathCost;
+        this.priority = priority;
+        this.depth = parent.depth + 1;
+    }
+
+    @Override
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    @Override
+    public void setHeapIndex(int index) {
+        heapIndex = index;
+    }
+
+    /**
+     * Walks the parent pointers back to the root and collects the actions
+     * leading to this node.
+     *
+     * @return actions from the start state to the state of this node
+     */
+    public List<A> getActions() {
+        List<A> actions = new ArrayList<>(depth);
+        for (Node<S, A> node = this; node.parent != null; node = node.parent) {
+            actions.add(node.action);
+        }
+        Collections.reverse(actions);
+        return actions;
+    }
+
+    public Solution<S, A> toSolution() {
+        return new Solution<>(state, getActions(), pathCost);
     }
 
     @Override
     public int compareTo(Node<S, A> otherNode) {
-        //TODO: YOUR CODE HERE
-        throw new RuntimeException("Not Implemented");
+        int result = Double.compare(priority, otherNode.priority);
+        if (result == 0) {
+            // among nodes of equal priority prefer the deeper one, for A* it is closer to the goal
+            result = Double.compare(otherNode.pathCost, pathCost);
+        }
+        return result;
     }
 
     /**
@@ -224,3 +1076,801 @@ class Node<S, A> implements Comparable<Node<S, A>> {
 }
 
 
+/**
+ * Limits and settings of a search that can be chosen by the caller, for instance,
+ * from the command line. The defaults reproduce the standard algorithms.
+ */
+class SearchOptions {
+    /**
+     * Maximum number of expansions, the search gives up once it is reached
+     */
+    long nodeLimit = Long.MAX_VALUE;
+    /**
+     * Whether to apply the goal test when a node is generated rather than when it is expanded.
+     * Only sound for uninformed search with uniform costs, for instance BFS; ucs, greedy and astar ignore it.
+     */
+    boolean goalTestOnGeneration = false;
+    /**
+     * Frontier of ucs and astar: heap, bucket, radix or auto (bucket queue whenever all priorities are integers,
+     * otherwise radix heap whenever they are monotone)
+     */
+    String priorityFrontier = "auto";
+    /**
+     * Maximum number of states in the transposition table of idastar, 0 disables the table
+     */
+    int transpositionTableSize = 0;
+    /**
+     * Number of nodes kept per layer by beam search
+     */
+    int beamWidth = 100;
+    /**
+     * Time in milliseconds after which arastar stops and returns the best solution found so far
+     */
+    long timeLimit = Long.MAX_VALUE;
+    /**
+     * Heuristic weight of the first search of arastar, and the amount it is decreased by after each search
+     */
+    double initialWeight = 3;
+    double weightDecrement = 0.5;
+    /**
+     * Notified of every improved solution of an anytime search (arastar), can be null
+     */
+    SolutionListener solutionListener = null;
+    /**
+     * Number of worker threads of pastar
+     */
+    int threadCount = Runtime.getRuntime().availableProcessors();
+}
+
+/**
+ * Receives the solutions of an anytime search as they improve.
+ */
+interface SolutionListener {
+    /**
+     * @param solution the best solution found so far
+     * @param bound the cost of the solution is at most bound times the optimal cost
+     */
+    void improvedSolution(Solution<?, ?> solution, double bound);
+}
+
+/**
+ * A node on the current path of a depth-first search without a frontier (see BoundedDepthFirstSearch), together with
+ * its successors and the index of the next successor to visit. Frames are reused across paths.
+ */
+class SearchPathFrame<S, A> {
+    S state;
+    A action;
+    double pathCost;
+    SuccessorBuffer<S, A> successors;
+    /**
+     * Index of the next successor to visit, -1 if the state has not been expanded yet
+     */
+    int next;
+
+    public SearchPathFrame() {
+        this.successors = new SuccessorBuffer<>();
+    }
+
+    public void reset(S state, A action, double pathCost) {
+        this.state = state;
+        this.action = action;
+        this.pathCost = pathCost;
+        this.next = -1;
+    }
+}
+
+/**
+ * One iteration of iterative deepening DFS or IDA*: a depth-first search from the start state that only keeps
+ * the current path and skips states already on it. A successor is cut off if its f = g + h is above the bound,
+ * where h is 0 without a heuristic, and a node at the depth limit is goal tested but not expanded.
+ * The path, the cycle check and the expansion count are reused across iterations.
+ */
+class BoundedDepthFirstSearch<S, A> {
+    SearchProblem<S, A> problem;
+    SearchHeuristic<S, A> heuristic;
+    TranspositionTable<S> transpositions;
+    long nodeLimit;
+    List<SearchPathFrame<S, A>> path = new ArrayList<>();
+    PathStates<S> pathStates;
+    long expansions = 0;
+
+    /**
+     * Least f of the successors cut off by the bound in the last iteration, infinity if there were none
+     */
+    double nextBound;
+    /**
+     * Whether a node was not expanded because of the depth limit in the last iteration
+     */
+    boolean depthCutOff;
+    boolean nodeLimitReached;
+
+    /**
+     * @param heuristic     null to only cut off by depth
+     * @param transpositions null to only skip states on the current path
+     */
+    public BoundedDepthFirstSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic,
+                                   TranspositionTable<S> transpositions, long nodeLimit) {
+        this.problem = problem;
+        this.heuristic = heuristic;
+        this.transpositions = transpositions;
+        this.nodeLimit = nodeLimit;
+        this.pathStates = new PathStates<>(problem);
+        path.add(new SearchPathFrame<>());
+    }
+
+    /**
+     * @return the first solution found within the bound and the depth limit, or null
+     */
+    public Solution<S, A> search(double bound, int depthLimit) {
+        nextBound = Double.POSITIVE_INFINITY;
+        depthCutOff = false;
+        if (transpositions != null) {
+            transpositions.clear();
+        }
+
+        int depth = 0;
+        path.get(0).reset(problem.getStartState(), null, 0);
+        pathStates.add(path.get(0).state);
+        while (depth >= 0) {
+            SearchPathFrame<S, A> frame = path.get(depth);
+            if (frame.next < 0) {
+                // first visit of the node
+                if (problem.isGoalState(frame.state)) {
+                    List<A> actions = new ArrayList<>(depth);
+                    for (int i = 1; i <= depth; i++) {
+                        actions.add(path.get(i).action);
+                    }
+                    return new Solution<>(frame.state, actions, frame.pathCost);
+                }
+                if (depth == depthLimit) {
+                    depthCutOff = true;
+                    pathStates.remove(frame.state);
+                    depth--;
+                    continue;
+                }
+                if (expansions++ >= nodeLimit) {
+                    nodeLimitReached = true;
+                    return null;
+                }
+                problem.expand(frame.state, frame.successors);
+                frame.next = 0;
+            }
+
+            if (frame.next == frame.successors.size()) {
+                pathStates.remove(frame.state);
+                depth--;
+                continue;
+            }
+            int i = frame.next++;
+            S nextState = frame.successors.getNextState(i);
+            if (pathStates.contains(nextState)) {
+                continue;
+            }
+            double pathCost = frame.pathCost + frame.successors.getCost(i);
+            if (transpositions != null && !transpositions.improves(nextState, pathCost)) {
+                continue;
+            }
+            if (heuristic != null) {
+                double priority = pathCost + GraphSearch.heuristicValue(heuristic, nextState, problem);
+                if (priority > bound) {
+                    nextBound = Math.min(nextBound, priority);
+                    continue;
+                }
+            }
+
+            depth++;
+            if (depth == path.size()) {
+                path.add(new SearchPathFrame<>());
+            }
+            path.get(depth).reset(nextState, frame.successors.getAction(i), pathCost);
+            pathStates.add(nextState);
+        }
+        return null;
+    }
+}
+
+/**
+ * The states on the current path of a depth-first search, kept for cycle checks.
+ * Uses an open-addressing set of the dense state indices of the problem if it has them and a hash set
+ * otherwise; either way the memory is proportional to the length of the path.
+ */
+class PathStates<S> {
+    SearchProblem<S, ?> problem;
+    /**
+     * Open-addressing table with linear probing, an entry is a state index plus one, 0 for empty positions
+     */
+    int[] table;
+    int size;
+    Set<S> states;
+
+    public PathStates(SearchProblem<S, ?> problem) {
+        this.problem = problem;
+        if (problem.getStateIndexBound() > 0) {
+            this.table = new int[16];
+        } else {
+            this.states = new HashSet<>();
+        }
+    }
+
+    public boolean contains(S state) {
+        if (table == null)
+            return states.contains(state);
+        int entry = problem.getStateIndex(state) + 1;
+        int mask = table.length - 1;
+        for (int i = home(entry); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == entry)
+                return true;
+        }
+        return false;
+    }
+
+    public void add(S state) {
+        if (table == null) {
+            states.add(state);
+            return;
+        }
+        if (2 * (size + 1) > table.length) {
+            int[] entries = table;
+            table = new int[2 * entries.length];
+            for (int entry : entries) {
+                if (entry != 0)
+                    insert(entry);
+            }
+        }
+        insert(problem.getStateIndex(state) + 1);
+        size++;
+    }
+
+    /**
+     * Removes the state, which must be in the set, shifting back the entries that probed past it
+     */
+    public void remove(S state) {
+        if (table == null) {
+            states.remove(state);
+            return;
+        }
+        int entry = problem.getStateIndex(state) + 1;
+        int mask = table.length - 1;
+        int gap = home(entry);
+        while (table[gap] != entry) {
+            gap = (gap + 1) & mask;
+        }
+        for (int i = (gap + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            // an entry may fill the gap if the gap lies on its probe sequence, between its home and i
+            if (((i - home(table[i])) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+        size--;
+    }
+
+    private void insert(int entry) {
+        int mask = table.length - 1;
+        int i = home(entry);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+    }
+
+    private int home(int entry) {
+        return (entry * 0x9E3779B9) >>> 32 - Integer.numberOfTrailingZeros(table.length);
+    }
+}
+
+/**
+ * The least path cost each state was reached with in the current iteration of IDA*, for at most 'capacity' states.
+ * For problems with dense state indices, the states are kept by index in an open-addressing table of a fixed size
+ * proportional to the capacity, whose entries are stamped with the iteration, so clearing it takes O(1) time.
+ * Other problems use a hash map.
+ */
+class TranspositionTable<S> {
+    SearchProblem<S, ?> problem;
+    int capacity;
+    int size;
+    /**
+     * State indices of the entries, valid where the stamp equals the current generation
+     */
+    int[] indices;
+    int[] stamps;
+    double[] pathCosts;
+    int generation;
+    Map<S, Double> states;
+
+    /**
+     * @param capacity largest number of states, at most 2^28
+     */
+    public TranspositionTable(SearchProblem<S, ?> problem, int capacity) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Transposition table size must be between 1 and 2^28, got " + capacity);
+        }
+        this.problem = problem;
+        this.capacity = capacity;
+        if (problem.getStateIndexBound() > 0) {
+            int length = Integer.highestOneBit(capacity) << 2;
+            this.indices = new int[length];
+            this.stamps = new int[length];
+            this.pathCosts = new double[length];
+            this.generation = 1;
+        } else {
+            this.states = new HashMap<>();
+        }
+    }
+
+    /**
+     * Records the path cost if the state is known or the table is not full yet
+     *
+     * @return false if the state was reached before with a path cost that is not larger
+     */
+    public boolean improves(S state, double pathCost) {
+        if (indices != null) {
+            int index = problem.getStateIndex(state);
+            int mask = indices.length - 1;
+            int i = (int) ((index * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            for (; stamps[i] == generation; i = (i + 1) & mask) {
+                if (indices[i] == index) {
+                    if (pathCosts[i] <= pathCost)
+                        return false;
+                    pathCosts[i] = pathCost;
+                    return true;
+                }
+            }
+            if (size < capacity) {
+                indices[i] = index;
+                stamps[i] = generation;
+                pathCosts[i] = pathCost;
+                size++;
+            }
+            return true;
+        }
+
+        Double knownPathCost = states.get(state);
+        if (knownPathCost != null && knownPathCost <= pathCost)
+            return false;
+        if (knownPathCost != null || states.size() < capacity)
+            states.put(state, pathCost);
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+        if (indices != null) {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        } else {
+            states.clear();
+        }
+    }
+}
+
+/**
+ * Open and reached nodes of one direction of bidirectional A*. A state whose g improves gets a new node,
+ * which replaces the old one in 'reached' and reopens the state if it has been expanded.
+ * The queues ordered by f and by g are cleaned lazily: a node is open while it is
+ * the reached node of its state and the state has not been expanded since.
+ */
+class BidirectionalFrontier<S, A> {
+    boolean isForward;
+    PriorityQueue<Node<S, A>> byPriority;
+    PriorityQueue<Node<S, A>> byPathCost;
+    Map<S, Node<S, A>> reached;
+    Set<S> expanded;
+
+    public BidirectionalFrontier(boolean isForward) {
+        this.isForward = isForward;
+        this.byPriority = new PriorityQueue<>();
+        this.byPathCost = new PriorityQueue<>(Comparator.comparingDouble(node -> node.pathCost));
+        this.reached = new HashMap<>();
+        this.expanded = new HashSet<>();
+    }
+
+    public void add(Node<S, A> node) {
+        reached.put(node.state, node);
+        expanded.remove(node.state);
+        byPriority.add(node);
+        byPathCost.add(node);
+    }
+
+    /**
+     * @return the node reached with the least g so far, or null
+     */
+    public Node<S, A> get(S state) {
+        return reached.get(state);
+    }
+
+    /**
+     * Removes the open node with the least f and marks its state as expanded
+     */
+    public Node<S, A> pop() {
+        removeClosed(byPriority);
+        Node<S, A> node = byPriority.poll();
+        expanded.add(node.state);
+        return node;
+    }
+
+    public boolean isEmpty() {
+        removeClosed(byPriority);
+        return byPriority.isEmpty();
+    }
+
+    /**
+     * @return the number of open nodes, including not yet removed closed ones
+     */
+    public int size() {
+        return byPriority.size();
+    }
+
+    public double minPriority() {
+        removeClosed(byPriority);
+        return byPriority.isEmpty() ? Double.POSITIVE_INFINITY : byPriority.peek().priority;
+    }
+
+    public double minPathCost() {
+        removeClosed(byPathCost);
+        return byPathCost.isEmpty() ? Double.POSITIVE_INFINITY : byPathCost.peek().pathCost;
+    }
+
+    private void removeClosed(PriorityQueue<Node<S, A>> queue) {
+        while (!queue.isEmpty()) {
+            Node<S, A> node = queue.peek();
+            if (reached.get(node.state) == node && !expanded.contains(node.state))
+                return;
+            queue.poll();
+        }
+    }
+}
+
+/**
+ * Hash-distributed A* (HDA*). Every state is owned by one worker thread, chosen by the hash of the state,
+ * and only its owner keeps the state in its frontier and its map of best nodes. A worker expands its own
+ * nodes, evaluates the heuristic of the successors and sends each of them to its owner through lock-free queues.
+ * The owner keeps the node if it improves the best known path cost of the state, reopening expanded states
+ * when it does, so inconsistent heuristics are handled.
+ *
+ * Successors are batched per owner to save messages, but a batch is sent as soon as it holds a node whose
+ * f = g + h is not worse than the best f of the local frontier, since the owner may have nothing better to expand;
+ * batches of worse nodes wait until the local frontier catches up with them, they fill up, or the worker is idle.
+ * Each worker also publishes the best f of its frontier, lowered by the batches sent to it, and yields instead of
+ * expanding a node worse than the best f published by another worker, so that a worker which gets more CPU time
+ * than the others does not run ahead of them into nodes that A* would never expand.
+ *
+ * Goal states are detected by their owner on arrival and lower the shared incumbent cost, nodes whose
+ * f is not below the incumbent are not expanded. A worker is idle when it has nothing else to expand.
+ * One counter holds the number of active workers plus the number of batches in flight: only active workers send
+ * batches and a worker only becomes active again by taking a batch, so once the counter drops to 0 it stays there.
+ * Then every frontier only holds nodes with f at least the incumbent, which is optimal for an admissible heuristic.
+ *
+ * Nodes are not modified by other threads once sent. The owner may only change the parent of a node
+ * that is still in its frontier, which no other node refers to yet.
+ */
+class ParallelAStarSearch<S, A> {
+    static final int BATCH_SIZE = 64;
+
+    private final SearchProblem<S, A> problem;
+    private final SearchHeuristic<S, A> heuristic;
+    private final long nodeLimit;
+    private final List<Worker> workers = new ArrayList<>();
+
+    private final AtomicLong activeWork = new AtomicLong();
+    /**
+     * Expansions of all workers, only counted when there is a node limit
+     */
+    private final AtomicLong sharedExpandedCount = new AtomicLong();
+    /**
+     * Set when the node limit is reached or a worker fails, all workers then stop
+     */
+    private volatile boolean stopped = false;
+    /**
+     * Set by the worker that brings activeWork to 0, the incumbent is then optimal
+     */
+    private volatile boolean finished = false;
+    private volatile Throwable failure = null;
+    /**
+     * Best f of the frontier and inbox of each worker, as raw double bits, which order like longs for f >= 0
+     */
+    private final AtomicLongArray bestPriorities;
+
+    private volatile double incumbentCost = Double.POSITIVE_INFINITY;
+    private Node<S, A> incumbent = null;
+
+    public ParallelAStarSearch(SearchProblem<S, A> problem, SearchHeuristic<S, A> heuristic, int threadCount, long nodeLimit) {
+        this.problem = problem;
+        this.heuristic = heuristic;
+        this.nodeLimit = nodeLimit;
+        this.bestPriorities = new AtomicLongArray(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(new Worker(i, threadCount));
+            bestPriorities.set(i, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+        }
+    }
+
+    /**
+     * @return an optimal solution, or null if there is none or the node limit is reached
+     */
+    public Solution<S, A> search() {
+        S startState = problem.getStartState();
+        List<Node<S, A>> startBatch = new ArrayList<>(1);
+        problem.heuristicCount++;
+        startBatch.add(new Node<>(startState, null, null, 0, heuristic.value(startState, problem)));
+        activeWork.set(workers.size() + 1);
+        workers.get(owner(startState)).inbox.add(startBatch);
+        lowerBestPriority(owner(startState), startBatch.get(0).priority);
+
+        problem.concurrentExpansions = true;
+        List<Thread> threads = new ArrayList<>(workers.size());
+        try {
+            for (Worker worker : workers) {
+                Thread thread = new Thread(worker, "pastar-" + worker.index);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the search threads", e);
+        } finally {
+            problem.concurrentExpansions = false;
+        }
+
+        for (Worker worker : workers) {
+            problem.expandedCount += worker.expandedCount;
+            problem.heuristicCount += worker.heuristicCount;
+        }
+        if (failure != null) {
+            throw new RuntimeException("Search thread failed", failure);
+        }
+        if (!finished || incumbent == null) {
+            return null;
+        }
+        return incumbent.toSolution();
+    }
+
+    private int owner(S state) {
+        int mixed = state.hashCode() * 0x9E3779B9;
+        return (int) (((mixed & 0xFFFFFFFFL) * workers.size()) >>> 32);
+    }
+
+    private void lowerBestPriority(int worker, double priority) {
+        long bits = Double.doubleToRawLongBits(priority);
+        for (long current = bestPriorities.get(worker); bits < current; current = bestPriorities.get(worker)) {
+            if (bestPriorities.compareAndSet(worker, current, bits))
+                return;
+        }
+    }
+
+    /**
+     * @return whether another worker has published a better f than the given one
+     */
+    private boolean isBehind(int worker, double priority) {
+        long bits = Double.doubleToRawLongBits(priority);
+        for (int i = 0; i < workers.size(); i++) {
+            if (i != worker && bestPriorities.get(i) < bits)
+                return true;
+        }
+        return false;
+    }
+
+    private synchronized void offerSolution(Node<S, A> node) {
+        if (node.pathCost < incumbentCost) {
+            incumbent = node;
+            incumbentCost = node.pathCost;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final int index;
+        final ConcurrentLinkedQueue<List<Node<S, A>>> inbox = new ConcurrentLinkedQueue<>();
+        final Util.IndexedHeap<S, Node<S, A>> frontier = new Util.IndexedHeap<>(node -> node.state);
+        final Map<S, Node<S, A>> nodes = new HashMap<>();
+        final List<List<Node<S, A>>> outboxes = new ArrayList<>();
+        /**
+         * Least f in each outbox, infinity for empty outboxes
+         */
+        final double[] outboxPriorities;
+        final SuccessorBuffer<S, A> successors = new SuccessorBuffer<>();
+        long expandedCount = 0;
+        long heuristicCount = 0;
+
+        Worker(int index, int threadCount) {
+            this.index = index;
+            for (int i = 0; i < threadCount; i++) {
+                outboxes.add(new ArrayList<>(BATCH_SIZE));
+            }
+            this.outboxPriorities = new double[threadCount];
+            Arrays.fill(outboxPriorities, Double.POSITIVE_INFINITY);
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (Throwable e) {
+                failure = e;
+                stopped = true;
+            }
+        }
+
+        private void search() {
+            while (!stopped) {
+                for (List<Node<S, A>> batch; (batch = inbox.poll()) != null; ) {
+                    for (Node<S, A> node : batch) {
+                        receive(node);
+                    }
+                    activeWork.decrementAndGet();
+                }
+
+                Node<S, A> node = frontier.peek();
+                if (node != null && node.priority < incumbentCost) {
+                    bestPriorities.set(index, Double.doubleToRawLongBits(node.priority));
+                    if (isBehind(index, node.priority)) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (nodeLimit != Long.MAX_VALUE && sharedExpandedCount.getAndIncrement() >= nodeLimit) {
+                        stopped = true;
+                        return;
+                    }
+                    expand(frontier.pop());
+                    continue;
+                }
+
+                // idle until a batch arrives, or until all workers are idle and no batch is in flight
+                bestPriorities.set(index, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+                flushAll();
+                if (activeWork.decrementAndGet() == 0) {
+                    finished = true;
+                    return;
+                }
+                for (int spins = 0; inbox.isEmpty() && activeWork.get() != 0 && !stopped; spins++) {
+                    if (spins < 1000)
+                        Thread.onSpinWait();
+                    else
+                        LockSupport.parkNanos(50_000);
+                }
+                if (inbox.isEmpty()) {
+                    return;
+                }
+                activeWork.incrementAndGet();
+            }
+        }
+
+        /**
+         * Keeps the node if it improves the best known path cost of its state
+         */
+        private void receive(Node<S, A> node) {
+            Node<S, A> known = nodes.get(node.state);
+            if (known != null && node.pathCost >= known.pathCost) {
+                return;
+            }
+            if (known != null && frontier.contains(node.state)) {
+                known.setParent(node.parent, node.action, node.pathCost, node.pathCost + known.heuristic);
+                frontier.decreaseKey(known);
+                return;
+            }
+
+            nodes.put(node.state, node);
+            if (problem.isGoalState(node.state)) {
+                offerSolution(node);
+            } else if (node.priority < incumbentCost) {
+                frontier.push(node);
+            }
+        }
+
+        private void expand(Node<S, A> node) {
+            expandedCount++;
+            problem.expand(node.state, successors);
+            for (int i = 0; i < successors.size(); i++) {
+                S nextState = successors.getNextState(i);
+                if (node.parent != null && nextState.equals(node.parent.state)) {
+                    // going back never improves the path cost of the parent
+                    continue;
+                }
+                double pathCost = node.pathCost + successors.getCost(i);
+                heuristicCount++;
+                Node<S, A> nextNode = new Node<>(nextState, node, successors.getAction(i), pathCost,
+                                                 heuristic.value(nextState, problem));
+                int owner = owner(nextState);
+                if (owner == index) {
+                    receive(nextNode);
+                } else {
+                    outboxes.get(owner).add(nextNode);
+                    outboxPriorities[owner] = Math.min(outboxPriorities[owner], nextNode.priority);
+                }
+            }
+
+            Node<S, A> best = frontier.peek();
+            double bestPriority = best == null ? Double.POSITIVE_INFINITY : best.priority;
+            for (int owner = 0; owner < outboxes.size(); owner++) {
+                if (outboxPriorities[owner] <= bestPriority || outboxes.get(owner).size() >= BATCH_SIZE)
+                    flush(owner);
+            }
+        }
+
+        private void flush(int owner) {
+            // counted before it is sent, so that the counter cannot drop to 0 while the batch is in flight
+            activeWork.incrementAndGet();
+            lowerBestPriority(owner, outboxPriorities[owner]);
+            workers.get(owner).inbox.add(outboxes.get(owner));
+            outboxes.set(owner, new ArrayList<>(BATCH_SIZE));
+            outboxPriorities[owner] = Double.POSITIVE_INFINITY;
+        }
+
+        private void flushAll() {
+            for (int owner = 0; owner < outboxes.size(); owner++) {
+                if (!outboxes.get(owner).isEmpty())
+                    flush(owner);
+            }
+        }
+    }
+}
+
+/**
+ * Describes how graphSearch behaves: which frontier and closed set it uses,
+ * when the goal test is applied and how nodes are prioritised.
+ *
+ * The priority of a node is pathCostWeight * g + heuristicWeight * h, that is,
+ * f = g + h for A* and f = h for greedy search. For uninformed search the heuristic is null
+ * and the order of nodes is given by the frontier alone.
+ */
+class SearchConfig<S, A> {
+    Util.Frontier<Node<S, A>> frontier;
+    Util.ClosedSet<S> closedSet;
+    SearchHeuristic<S, A> heuristic;
+    double pathCostWeight;
+    double heuristicWeight;
+    boolean goalTestOnGeneration;
+    long nodeLimit;
+
+    public SearchConfig(Util.Frontier<Node<S, A>> frontier, SearchProblem<S, A> problem, SearchOptions options) {
+        this.frontier = frontier;
+        this.closedSet = new ExpandedStatesClosedSet<>(problem);
+        this.heuristic = null;
+        this.pathCostWeight = 1;
+        this.heuristicWeight = 1;
+        this.goalTestOnGeneration = options.goalTestOnGeneration;
+        this.nodeLimit = options.nodeLimit;
+    }
+
+    /**
+     * For strategies that order the frontier by priority: a goal found when generated is not necessarily
+     * the one with the best priority, so options.goalTestOnGeneration is ignored
+     */
+    public void testGoalsOnExpansion(String strategy) {
+        if (goalTestOnGeneration) {
+            out.println("Goal test on generation is ignored by " + strategy + ", goals are tested on expansion");
+            goalTestOnGeneration = false;
+        }
+    }
+}
+
+/**
+ * The default closed set. It relies on the bookkeeping that SearchProblem.expand
+ * already does for every expanded state, so no second set has to be maintained.
+ */
+class ExpandedStatesClosedSet<S> implements Util.ClosedSet<S> {
+    private final SearchProblem<S, ?> problem;
+
+    public ExpandedStatesClosedSet(SearchProblem<S, ?> problem) {
+        this.problem = problem;
+    }
+
+    @Override
+    public boolean contains(S state) {
+        return problem.isExpanded(state);
+    }
+
+    /**
+     * Nothing to do, the state is recorded when it is expanded by the problem.
+     */
+    @Override
+    public void add(S state) {
+    }
+}
@@ -20,8 +20,12 @@ import java.io.File;
 import java.io.FileReader;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 class Maze
 {
@@ -43,6 +47,33 @@ class Maze
     private Coordinate pacmanLocation;
     private final int width;
     private final int height;
+    private Coordinate[] cellCoordinates;
+
+    /**
+     * Precomputed moves of pacman, built once when the maze is created.
+     *
+     * actionMasks[cell] has bit action.ordinal() set if the action does not lead into a wall.
+     * The legal moves of a cell are also stored in compressed (CSR) form: the slots
+     * neighbourStarts[cell] .. neighbourStarts[cell + 1] - 1 of neighbourCells and neighbourActions
+     * hold the next cell and the action, in the order NORTH, SOUTH, EAST, WEST of getPacmanActions.
+     */
+    private final byte[] actionMasks;
+    private final int[] neighbourStarts;
+    private final int[] neighbourCells;
+    private final PacmanAction[] neighbourActions;
+    private final int[] actionOffsets;
+
+    /**
+     * Distance oracles computed on demand, by list of source cells (null for all free cells)
+     */
+    private final Map<List<Integer>, MazeDistanceOracle> distanceOracles = new HashMap<>();
+
+    private static final PacmanAction[] PACMAN_ACTIONS = new PacmanAction[]{PacmanAction.NORTH, PacmanAction.SOUTH,
+            PacmanAction.EAST, PacmanAction.WEST};
+    /**
+     * The (immutable) list of legal actions for every possible action mask
+     */
+    private static final List<List<PacmanAction>> ACTION_LISTS = createActionLists();
 
     private final String TEXT_RESET = "\u001B[0m";
     private final String TEXT_YELLOW = "\u001B[33m";
@@ -64,6 +95,60 @@ class Maze
         this.width = width;
         this.height = height;
         this.pacmanLocation = pacmanLocation;
+
+        this.actionOffsets = new int[PacmanAction.values().length];
+        for (PacmanAction action : PacmanAction.values()) {
+            Coordinate vector = action.toVector();
+            actionOffsets[action.ordinal()] = getCellIndex(vector.x, vector.y);
+        }
+
+        int cellCount = width * height;
+        this.actionMasks = new byte[cellCount];
+        this.neighbourStarts = new int[cellCount + 1];
+        int neighbourCount = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            if (walls[y][x])
+                continue;
+            for (PacmanAction action : PACMAN_ACTIONS) {
+                Coordinate vector = action.toVector();
+                int nextX = x + vector.x;
+                int nextY = y + vector.y;
+                if (nextX >= 0 && nextX < width && nextY >= 0 && nextY < height && !walls[nextY][nextX]) {
+                    actionMasks[cell] |= 1 << action.ordinal();
+                    neighbourCount++;
+                }
+            }
+        }
+
+        this.neighbourCells = new int[neighbourCount];
+        this.neighbourActions = new PacmanAction[neighbourCount];
+        int slot = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            neighbourStarts[cell] = slot;
+            for (PacmanAction action : PACMAN_ACTIONS) {
+                if (isLegalAction(cell, action)) {
+                    neighbourCells[slot] = cell + actionOffsets[action.ordinal()];
+                    neighbourActions[slot] = action;
+                    slot++;
+                }
+            }
+        }
+        neighbourStarts[cellCount] = slot;
+    }
+
+    private static List<List<PacmanAction>> createActionLists() {
+        List<List<PacmanAction>> actionLists = new ArrayList<>();
+        for (int mask = 0; mask < 1 << PacmanAction.values().length; mask++) {
+            List<PacmanAction> actions = new ArrayList<>();
+            for (PacmanAction action : PACMAN_ACTIONS) {
+                if ((mask & (1 << action.ordinal())) != 0)
+                    actions.add(action);
+            }
+            actionLists.add(Collections.unmodifiableList(actions));
+        }
+        return actionLists;
     }
 
     /**
@@ -217,10 +302,51 @@ class Maze
     }
 
 
+    /**
+     * Cells of the maze can be numbered as in a flat array of width * height cells.
+     *
+     * @return the index y * width + x of the cell (x,y)
+     */
+    public int getCellIndex(int x, int y) {
+        return y * width + x;
+    }
+
+    public int getCellIndex(Coordinate c) {
+        return getCellIndex(c.x, c.y);
+    }
+
+    /**
+     * @param cell index of a cell, see getCellIndex
+     * @return the coordinate of the cell. The coordinate is created once per cell and shared,
+     * it must not be modified.
+     */
+    public Coordinate getCellCoordinate(int cell) {
+        if (cellCoordinates == null) {
+            cellCoordinates = new Coordinate[width * height];
+        }
+        Coordinate coordinate = cellCoordinates[cell];
+        if (coordinate == null) {
+            coordinate = new Coordinate(cell % width, cell / width);
+            cellCoordinates[cell] = coordinate;
+        }
+        return coordinate;
+    }
+
+    /**
+     * @return the number of cells, walls included
+     */
+    public int getCellCount() {
+        return width * height;
+    }
+
     public boolean isWall(Coordinate c) {
         return walls[c.y][c.x];
     }
 
+    public boolean isWall(int cell) {
+        return walls[cell / width][cell % width];
+    }
+
     public boolean isFood(int x, int y) {
         return food[y][x];
     }
@@ -264,23 +390,237 @@ class Maze
      * Return list of available Pacman actions from a given position in the maze.
      *
      * @param pacmanLocation
-     * @return actions that do not result in moving into wall
+     * @return actions that do not result in moving into wall, the list is shared and must not be modified
      */
     public List<PacmanAction> getPacmanActions(Coordinate pacmanLocation) {
-        PacmanAction[] possibleActions = new PacmanAction[]{PacmanAction.NORTH, PacmanAction.SOUTH,
-                PacmanAction.EAST, PacmanAction.WEST};
+        return getPacmanActions(getCellIndex(pacmanLocation));
+    }
 
-        List<PacmanAction> validActions = new ArrayList<>();
-        for (PacmanAction action : possibleActions) {
-            Coordinate actionVector = action.toVector();
-            Coordinate nextLocation = pacmanLocation.add( actionVector );
+    public List<PacmanAction> getPacmanActions(int cell) {
+        return ACTION_LISTS.get(actionMasks[cell]);
+    }
 
-            if (!this.isWall(nextLocation)) {
-                validActions.add(action);
+    /**
+     * @return the mask of legal actions in the cell, bit action.ordinal() is set if action is legal
+     */
+    public int getActionMask(int cell) {
+        return actionMasks[cell];
+    }
+
+    public boolean isLegalAction(int cell, PacmanAction action) {
+        return (actionMasks[cell] & (1 << action.ordinal())) != 0;
+    }
+
+    /**
+     * @return the cell reached from cell by action, the action is not checked for legality
+     */
+    public int getNeighbourCell(int cell, PacmanAction action) {
+        return cell + actionOffsets[action.ordinal()];
+    }
+
+    /**
+     * The legal moves from cell are in the slots getNeighbourStart(cell) .. getNeighbourEnd(cell) - 1,
+     * see getNeighbourCell(int) and getNeighbourAction(int).
+     */
+    public int getNeighbourStart(int cell) {
+        return neighbourStarts[cell];
+    }
+
+    public int getNeighbourEnd(int cell) {
+        return neighbourStarts[cell + 1];
+    }
+
+    public int getNeighbourCell(int slot) {
+        return neighbourCells[slot];
+    }
+
+    public PacmanAction getNeighbourAction(int slot) {
+        return neighbourActions[slot];
+    }
+
+    /**
+     * @return the shortest-path distances between all pairs of free cells, computed on the first call
+     * (see MazeDistanceOracle.MAX_ALL_PAIRS_CELLS for the size limit)
+     */
+    public MazeDistanceOracle getDistanceOracle() {
+        return getDistanceOracle(null);
+    }
+
+    /**
+     * @param sources coordinates of free cells, for instance the food and the corners of the maze
+     * @return the shortest-path distances from the given cells to all cells, computed on the first call
+     * for the same list of cells
+     */
+    public synchronized MazeDistanceOracle getDistanceOracle(List<Coordinate> sources) {
+        List<Integer> sourceCells = null;
+        if (sources != null) {
+            sourceCells = new ArrayList<>(sources.size());
+            for (Coordinate source : sources) {
+                sourceCells.add(getCellIndex(source));
+            }
+        }
+        MazeDistanceOracle oracle = distanceOracles.get(sourceCells);
+        if (oracle == null) {
+            oracle = new MazeDistanceOracle(this, sourceCells == null ? null : sourceCells.stream().mapToInt(Integer::intValue).toArray());
+            distanceOracles.put(sourceCells, oracle);
+        }
+        return oracle;
+    }
+}
+
+/**
+ * True shortest-path distances in a maze from a set of source cells (all free cells by default)
+ * to every free cell, computed by one BFS per source, in parallel across the available cores.
+ *
+ * The distances are stored in one flat row-major matrix with a row per source and a column per free cell,
+ * as short values when every distance fits (fewer than Short.MAX_VALUE free cells) and as int values otherwise.
+ * Lookups take O(1) time. Moves are reversible, so the distance between two cells is known as soon as
+ * one of them is a source.
+ */
+class MazeDistanceOracle {
+    /**
+     * Largest number of free cells for which all-pairs distances are computed, which takes
+     * about 2 * MAX_ALL_PAIRS_CELLS^2 bytes
+     */
+    static final int MAX_ALL_PAIRS_CELLS = 8192;
+
+    private final Maze maze;
+    private final int[] sourceCells;
+    /**
+     * sourceIndices[cell] is the row of the cell, -1 if it is not a source
+     */
+    private final int[] sourceIndices;
+    /**
+     * columns[cell] is the column of the cell, -1 for walls
+     */
+    private final int[] columns;
+    private final int columnCount;
+    private final short[] shortDistances;
+    private final int[] intDistances;
+
+    /**
+     * @param sourceCells cells to compute the distances from, null for all free cells
+     */
+    public MazeDistanceOracle(Maze maze, int[] sourceCells) {
+        this.maze = maze;
+        int cellCount = maze.getCellCount();
+        this.columns = new int[cellCount];
+        int freeCells = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            columns[cell] = maze.isWall(cell) ? -1 : freeCells++;
+        }
+        this.columnCount = freeCells;
+
+        if (sourceCells == null) {
+            if (freeCells > MAX_ALL_PAIRS_CELLS) {
+                throw new IllegalArgumentException("All-pairs distances for " + freeCells + " free cells exceed the limit of "
+                        + MAX_ALL_PAIRS_CELLS + ", compute the distances from a subset of cells");
+            }
+            sourceCells = new int[freeCells];
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (columns[cell] >= 0)
+                    sourceCells[columns[cell]] = cell;
             }
         }
+        this.sourceCells = sourceCells;
+        this.sourceIndices = new int[cellCount];
+        Arrays.fill(sourceIndices, -1);
+        for (int i = 0; i < sourceCells.length; i++) {
+            sourceIndices[sourceCells[i]] = i;
+        }
+
+        long size = (long) sourceCells.length * columnCount;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Distance matrix of " + sourceCells.length + " x " + columnCount + " is too large");
+        }
+        boolean useShorts = columnCount < Short.MAX_VALUE;
+        this.shortDistances = useShorts ? new short[(int) size] : null;
+        this.intDistances = useShorts ? null : new int[(int) size];
+
+        IntStream.range(0, sourceCells.length).parallel().forEach(this::breadthFirstSearch);
+    }
+
+    /**
+     * Fills the row of the source with the BFS distances, -1 for unreachable cells;
+     * a source in a wall reaches no cell
+     */
+    private void breadthFirstSearch(int source) {
+        int rowStart = source * columnCount;
+        if (shortDistances != null)
+            Arrays.fill(shortDistances, rowStart, rowStart + columnCount, (short) -1);
+        else
+            Arrays.fill(intDistances, rowStart, rowStart + columnCount, -1);
+        if (columns[sourceCells[source]] < 0)
+            return;
+
+        int[] queue = new int[columnCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = sourceCells[source];
+        setDistance(rowStart + columns[sourceCells[source]], 0);
+        while (head < tail) {
+            int cell = queue[head++];
+            int nextDistance = getDistance(rowStart + columns[cell]) + 1;
+            for (int slot = maze.getNeighbourStart(cell); slot < maze.getNeighbourEnd(cell); slot++) {
+                int nextCell = maze.getNeighbourCell(slot);
+                int index = rowStart + columns[nextCell];
+                if (getDistance(index) < 0) {
+                    setDistance(index, nextDistance);
+                    queue[tail++] = nextCell;
+                }
+            }
+        }
+    }
+
+    private int getDistance(int index) {
+        return shortDistances != null ? shortDistances[index] : intDistances[index];
+    }
+
+    private void setDistance(int index, int distance) {
+        if (shortDistances != null)
+            shortDistances[index] = (short) distance;
+        else
+            intDistances[index] = distance;
+    }
+
+    public int getSourceCount() {
+        return sourceCells.length;
+    }
+
+    /**
+     * @return the row of the cell, -1 if the distances from the cell were not computed
+     */
+    public int getSourceIndex(int cell) {
+        return sourceIndices[cell];
+    }
+
+    /**
+     * @param sourceIndex row of a source, see getSourceIndex
+     * @param cell index of a cell, see Maze.getCellIndex
+     * @return the length of a shortest path between the source and the cell, -1 if there is none
+     */
+    public int distanceFromSource(int sourceIndex, int cell) {
+        int column = columns[cell];
+        return column < 0 ? -1 : getDistance(sourceIndex * columnCount + column);
+    }
+
+    /**
+     * @return the length of a shortest path between the cells, -1 if there is none;
+     * one of the cells has to be a source
+     */
+    public int distance(int cell, int otherCell) {
+        int sourceIndex = sourceIndices[cell];
+        if (sourceIndex >= 0)
+            return distanceFromSource(sourceIndex, otherCell);
+        sourceIndex = sourceIndices[otherCell];
+        if (sourceIndex >= 0)
+            return distanceFromSource(sourceIndex, cell);
+        throw new IllegalArgumentException("Neither " + maze.getCellCoordinate(cell) + " nor "
+                + maze.getCellCoordinate(otherCell) + " is a source of the distance oracle");
+    }
 
-        return validActions;
+    public int distance(Coordinate c, Coordinate other) {
+        return distance(maze.getCellIndex(c), maze.getCellIndex(other));
     }
 }
 
@@ -29,7 +29,11 @@
  * that will run depth-first search for 'PacmanPositionSearchProblem' on 'mediumMaze'.
  *
  * The option '-f' defines the search strategy to use and should be one of:
- * dfs (depth-first search), bfs (breadth-first search), greedy (greedy search) and astar (A* search).
+ * dfs (depth-first search), bfs (breadth-first search), iddfs (iterative deepening depth-first search),
+ * greedy (greedy search), beam (beam search), ucs (uniform-cost search), astar (A* search),
+ * pastar (parallel A* search), arastar (anytime repairing A* search), idastar (iterative deepening A* search),
+ * biastar (bidirectional A* search), bibfs (bidirectional breadth-first search) and jps (jump point search),
+ * the last two only for PacmanPositionSearchProblem.
  *
  * The option -a does not require a value, it enables animation of the obtained sequence of pacman moves.
  * The animation does not work well in IDE, but it does in a Unix terminal.
@@ -48,8 +52,17 @@ public class Pacman {
         out.println("options:");
         out.println("  -l <mazeName> : Name of the layout, see 'mazes' folder");
         out.println("  -p <searchProblem> : Name of the search problem class");
-        out.println("  -f <strategy> : Search strategy, one of dfs, bfs, greedy and astar");
+        out.println("  -f <strategy> : Search strategy, one of dfs, bfs, iddfs, greedy, beam, ucs, astar, pastar, arastar, idastar, biastar, bibfs and jps");
         out.println("  -h <heuristic> : Search heuristic to use (name of the class)");
+        out.println("  -c <entries> : Cache up to this many heuristic values, 0 (default) for no cache");
+        out.println("  -n <nodeLimit> : Maximum number of expansions before the search gives up");
+        out.println("  -e : Apply the goal test when nodes are generated rather than expanded (dfs and bfs)");
+        out.println("  -q <frontier> : Frontier of ucs and astar, one of auto, heap, bucket and radix");
+        out.println("  -t <entries> : Size of the transposition table of idastar, 0 (default) for none");
+        out.println("  -k <width> : Beam width of beam search (default 100)");
+        out.println("  -w <weight> : Initial heuristic weight of arastar (default 3)");
+        out.println("  -d <millis> : Time limit of arastar, it returns the best solution found until then");
+        out.println("  -j <threads> : Number of threads of pastar (default: number of processors)");
         out.println("  -a : Show textual animation of pacman moves");
         out.println("  -s : Show solution, sequence of pacman moves");
         out.println("  --help : Print this message and exit");
@@ -62,8 +75,10 @@ public class Pacman {
         String mazeFile = "mediumMaze";
         String function = "dfs";
         String heuristicName = "NullHeuristic";
+        int heuristicCacheSize = 0;
         boolean visualise = false;
         boolean animate = false;
+        SearchOptions options = new SearchOptions();
 
         for (int i = 0 ; i < args.length ; ++i) {
             String s = args[i];
@@ -80,6 +95,33 @@ public class Pacman {
                 case "-h":
                     heuristicName = args[++i];
                     break;
+                case "-c":
+                    heuristicCacheSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-n":
+                    options.nodeLimit = Long.parseLong(args[++i]);
+                    break;
+                case "-e":
+                    options.goalTestOnGeneration = true;
+                    break;
+                case "-q":
+                    options.priorityFrontier = args[++i];
+                    break;
+                case "-t":
+                    options.transpositionTableSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-k":
+                    options.beamWidth = Integer.parseInt(args[++i]);
+                    break;
+                case "-w":
+                    options.initialWeight = Double.parseDouble(args[++i]);
+                    break;
+                case "-d":
+                    options.timeLimit = Long.parseLong(args[++i]);
+                    break;
+                case "-j":
+                    options.threadCount = Integer.parseInt(args[++i]);
+                    break;
                 case "-s":
                     visualise = true;
                     break;
@@ -111,19 +153,38 @@ public class Pacman {
 
         /*
          Instantiate the heuristic. By default it is the trivial heuristic (NullHeuristic), that always returns 0.
+         With -c its values are cached, see CachedHeuristic.
          */
         SearchHeuristic<SearchState, PacmanAction> heuristic =
                 (SearchHeuristic) Class.forName(heuristicName).getConstructor().newInstance();
+        CachedHeuristic<SearchState, PacmanAction> cachedHeuristic = null;
+        if (heuristicCacheSize > 0) {
+            cachedHeuristic = new CachedHeuristic<>(heuristic, heuristicCacheSize);
+            heuristic = cachedHeuristic;
+        }
 
         /*
          Run the search algorithm, where the strategy is determined by function.
          Can be one of
             - dfs for depth first search
             - bfs for breadth first search
+            - iddfs for iterative deepening depth first search
             - greedy for greedy search
+            - beam for beam search
+            - ucs for uniform-cost search
             - astar for A* search
+            - pastar for parallel A* search
+            - arastar for anytime repairing A* search
+            - idastar for iterative deepening A* search
+            - biastar for bidirectional A* search
+            - bibfs for bidirectional breadth first search
+            - jps for jump point search
          */
-        Solution<SearchState, PacmanAction> solution = GraphSearch.search(function, searchProblem, heuristic);
+        Solution<SearchState, PacmanAction> solution = GraphSearch.search(function, searchProblem, heuristic, options);
+        if (cachedHeuristic != null) {
+            out.println("Heuristic cache: " + cachedHeuristic.getHitCount() + " hits, " + cachedHeuristic.getMissCount()
+                    + " misses, " + cachedHeuristic.getEvictionCount() + " evictions");
+        }
 
         /*
          Textual animation of Pacman moves.
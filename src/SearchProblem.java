@@ -19,6 +19,7 @@
  */
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Abstraction of a generic search problem (does not have to be a search problem for Pacman).
@@ -29,23 +30,111 @@ import java.util.*;
  */
 public abstract class SearchProblem<S,A> {
     long expandedCount;
+    long heuristicCount;
     List<S> visitedList;
     Set<S> visitedSet;
+    /**
+     * Replaces visitedSet for problems with indexed states, see getStateIndexBound()
+     */
+    Util.StampedIntSet visitedIndices;
+    /**
+     * Whether doBookKeeping records expanded states in visitedList and visitedSet (or visitedIndices),
+     * memory-bounded searches switch it off and only count expansions
+     */
+    boolean recordVisitedStates;
+    /**
+     * Set while several threads expand states at once (see GraphSearch, pastar), doBookKeeping then leaves
+     * the counting to the search and records nothing, as the collections are not thread-safe
+     */
+    boolean concurrentExpansions;
 
     public SearchProblem() {
         expandedCount = 0;
+        heuristicCount = 0;
         visitedList = new ArrayList<>();
         visitedSet = new HashSet<>();
+        visitedIndices = null;
+        recordVisitedStates = true;
+        concurrentExpansions = false;
     }
 
     public void doBookKeeping(S state) {
+        if (concurrentExpansions) {
+            return;
+        }
         expandedCount++;
-        if (!visitedSet.contains(state)) {
+        if (!recordVisitedStates) {
+            return;
+        }
+        if (getVisitedIndices() != null) {
+            if (visitedIndices.add(getStateIndex(state))) {
+                visitedList.add(state);
+            }
+        } else if (!visitedSet.contains(state)) {
             visitedSet.add(state);
             visitedList.add(state);
         }
     }
 
+    /**
+     * @param state
+     * @return whether state has already been expanded
+     */
+    public boolean isExpanded(S state) {
+        if (getVisitedIndices() != null) {
+            return visitedIndices.contains(getStateIndex(state));
+        }
+        return visitedSet.contains(state);
+    }
+
+    /**
+     * Problems whose action costs are all integers override this method, which allows
+     * the search to use integer priorities, see SearchOptions.priorityFrontier.
+     *
+     * @return whether all action costs are integers
+     */
+    public boolean hasIntegerCosts() {
+        return false;
+    }
+
+    /**
+     * The set of expanded state indices is created lazily, as the bound is
+     * only known once the subclass has been initialised.
+     */
+    private Util.StampedIntSet getVisitedIndices() {
+        if (visitedIndices == null && getStateIndexBound() > 0) {
+            visitedIndices = new Util.StampedIntSet(getStateIndexBound());
+        }
+        return visitedIndices;
+    }
+
+    /**
+     * Problems whose states can be numbered 0..bound-1 override this method together with
+     * getStateIndex. Expanded states are then recorded in an array indexed by the state
+     * instead of visitedSet, which avoids hashing states on every expansion.
+     *
+     * @return the number of distinct state indices, or 0 if states are not indexed
+     */
+    public int getStateIndexBound() {
+        return 0;
+    }
+
+    /**
+     * @param state
+     * @return index of the state in 0..getStateIndexBound()-1
+     */
+    public int getStateIndex(S state) {
+        throw new UnsupportedOperationException("States of " + getClass().getName() + " are not indexed");
+    }
+
+    /**
+     * @param recordVisitedStates whether expanded states are recorded (see getVisitedList and isExpanded)
+     *                            or only counted
+     */
+    public void setRecordVisitedStates(boolean recordVisitedStates) {
+        this.recordVisitedStates = recordVisitedStates;
+    }
+
     /**
      * This method is useful for printing statistics once solution has been found.
      *
@@ -55,6 +144,15 @@ public abstract class SearchProblem<S,A> {
         return expandedCount;
     }
 
+    /**
+     * The number of heuristic evaluations made by the search on this problem.
+     *
+     * @return the number of heuristic calls
+     */
+    public long getHeuristicCount() {
+        return heuristicCount;
+    }
+
     /**
      * Not used in the current version. Will be useful when
      * there will be a GUI version.
@@ -81,6 +179,22 @@ public abstract class SearchProblem<S,A> {
      */
     public abstract Collection<SuccessorInfo<S, A>> expand(S state);
 
+    /**
+     * Expands a state like expand(state), but writes the successors into a buffer
+     * provided (and reused) by the caller instead of allocating a new collection.
+     * The default implementation copies the result of expand(state), problems
+     * override it to avoid the allocation.
+     *
+     * @param state
+     * @param successors buffer that is cleared and filled with (next state, action, cost)
+     */
+    public void expand(S state, SuccessorBuffer<S, A> successors) {
+        successors.clear();
+        for (SuccessorInfo<S, A> successor : expand(state)) {
+            successors.add(successor.nextState, successor.action, successor.cost);
+        }
+    }
+
     /**
      * @param state
      * @return Actions available in the state
@@ -103,17 +217,48 @@ public abstract class SearchProblem<S,A> {
 
 }
 
+/**
+ * Search problems that can also be searched backwards, from the goal states to the start state,
+ * for instance by bidirectional A* (strategy "biastar" in GraphSearch).
+ *
+ * @param <S> class for states
+ * @param <A> class for actions
+ */
+interface BidirectionalSearchProblem<S, A> {
+    /**
+     * @return all goal states, the backward search starts from them
+     */
+    Collection<S> getGoalStates();
+
+    /**
+     * Expands a state backwards: fills the buffer with a triple (previous state, action, cost)
+     * for every action that leads from the previous state to 'state'.
+     * Like expand, it counts as an expansion of 'state'.
+     *
+     * @param state
+     * @param predecessors buffer that is cleared and filled with (previous state, action, cost)
+     */
+    void expandReverse(S state, SuccessorBuffer<S, A> predecessors);
+}
+
 /**
  * Formalisation of the position search problem for Pacman.
  * Implemented for you.
  * You do not need to modify this class.
  * You can study it to understand how to implement other search problems.
  */
-class PacmanPositionSearchProblem extends SearchProblem<PacmanPositionSearchState, PacmanAction> {
+class PacmanPositionSearchProblem extends SearchProblem<PacmanPositionSearchState, PacmanAction>
+        implements BidirectionalSearchProblem<PacmanPositionSearchState, PacmanAction> {
 
     private final Maze maze;
     private final Coordinate goalLocation;
     private final Coordinate startLocation;
+    private final int goalCell;
+    /**
+     * States are identified by the index of their cell (see Maze.getCellIndex),
+     * one state object per cell is created on demand and then reused.
+     */
+    private final PacmanPositionSearchState[] states;
 
 
     public PacmanPositionSearchProblem(Maze maze) {
@@ -121,24 +266,26 @@ class PacmanPositionSearchProblem extends SearchProblem<PacmanPositionSearchStat
 
         goalLocation = new Coordinate(1,1);
         startLocation = maze.getPacmanLocation();
+        goalCell = maze.getCellIndex(goalLocation);
+        states = new PacmanPositionSearchState[maze.getCellCount()];
     }
 
     @Override
     public PacmanPositionSearchState getStartState() {
-        return new PacmanPositionSearchState(startLocation);
+        return getState(maze.getCellIndex(startLocation));
     }
 
     @Override
     public boolean isGoalState(PacmanPositionSearchState state) {
-        return state.pacmanLocation.equals(goalLocation);
+        return state.cell == goalCell;
     }
 
     @Override
     public Collection<SuccessorInfo<PacmanPositionSearchState, PacmanAction>> expand(PacmanPositionSearchState state) {
 
-        Collection<SuccessorInfo<PacmanPositionSearchState, PacmanAction>> successors = new ArrayList<>();
-        for (PacmanAction action : getActions(state)) {
-            successors.add(new SuccessorInfo<>(getSuccessor(state, action), action, getCost(state, action)));
+        Collection<SuccessorInfo<PacmanPositionSearchState, PacmanAction>> successors = new ArrayList<>(4);
+        for (int slot = maze.getNeighbourStart(state.cell); slot < maze.getNeighbourEnd(state.cell); slot++) {
+            successors.add(new SuccessorInfo<>(getState(maze.getNeighbourCell(slot)), maze.getNeighbourAction(slot), 1));
         }
 
         doBookKeeping(state); // do not remove
@@ -146,75 +293,177 @@ class PacmanPositionSearchProblem extends SearchProblem<PacmanPositionSearchStat
         return successors;
     }
 
+    @Override
+    public void expand(PacmanPositionSearchState state, SuccessorBuffer<PacmanPositionSearchState, PacmanAction> successors) {
+        successors.clear();
+        for (int slot = maze.getNeighbourStart(state.cell); slot < maze.getNeighbourEnd(state.cell); slot++) {
+            successors.add(getState(maze.getNeighbourCell(slot)), maze.getNeighbourAction(slot), 1);
+        }
+
+        doBookKeeping(state); // do not remove
+    }
+
+    @Override
+    public Collection<PacmanPositionSearchState> getGoalStates() {
+        return List.of(getState(goalCell));
+    }
+
+    /**
+     * Moves are reversible: pacman gets from a neighbour into this cell by the reverse of the move
+     * from this cell into the neighbour.
+     */
+    @Override
+    public void expandReverse(PacmanPositionSearchState state,
+                              SuccessorBuffer<PacmanPositionSearchState, PacmanAction> predecessors) {
+        predecessors.clear();
+        for (int slot = maze.getNeighbourStart(state.cell); slot < maze.getNeighbourEnd(state.cell); slot++) {
+            predecessors.add(getState(maze.getNeighbourCell(slot)), maze.getNeighbourAction(slot).reverse(), 1);
+        }
+
+        doBookKeeping(state); // do not remove
+    }
+
     @Override
     public List<PacmanAction> getActions(PacmanPositionSearchState state) {
-        return maze.getPacmanActions(state.pacmanLocation);
+        return maze.getPacmanActions(state.cell);
     }
 
     @Override
     public PacmanPositionSearchState getSuccessor(PacmanPositionSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+        if (! maze.isLegalAction(state.cell, action)) {
             throw new RuntimeException("Invalid arguments. Action" + action + "is not valid from state" + state);
         }
 
-        return new PacmanPositionSearchState(state.pacmanLocation.add( action.toVector() ));
+        return getState(maze.getNeighbourCell(state.cell, action));
     }
 
     @Override
     public double getCost(PacmanPositionSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+        if (! maze.isLegalAction(state.cell, action)) {
             // action leads into the wall
             return 999999;
         }
         return 1;
     }
 
+    @Override
+    public boolean hasIntegerCosts() {
+        return true;
+    }
+
+    @Override
+    public int getStateIndexBound() {
+        return states.length;
+    }
+
+    @Override
+    public int getStateIndex(PacmanPositionSearchState state) {
+        return state.cell;
+    }
+
+    /**
+     * @param cell index of a cell of the maze
+     * @return the (shared) state of pacman being in that cell
+     */
+    public PacmanPositionSearchState getState(int cell) {
+        PacmanPositionSearchState state = states[cell];
+        if (state == null) {
+            state = new PacmanPositionSearchState(maze.getCellCoordinate(cell), cell);
+            states[cell] = state;
+        }
+        return state;
+    }
+
     public Coordinate getGoalLocation() {
         return goalLocation;
     }
+
+    public int getGoalCell() {
+        return goalCell;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
 }
 
 /**
- * Formalisation of Corners problem for Pacman.
- * You need to fill in the missing parts.
+ * Formalisation of the problem of visiting a given set of cells (waypoints) in any order.
+ *
+ * A state is the pacman cell together with the bitmask of visited waypoints, both packed
+ * into a single long (see PacmanWaypointsSearchState). As the cell index takes the lower bits,
+ * the number of waypoints is limited to 64 minus the number of bits of a cell index,
+ * for instance, 44 waypoints in a 1000x1000 maze.
+ *
+ * When the packed states fit into STATE_INDEX_LIMIT they are also used as state indices,
+ * and each state object is created once and reused.
  */
-class PacmanCornersProblem extends SearchProblem<PacmanCornersSearchState, PacmanAction> {
+class PacmanWaypointsProblem extends SearchProblem<PacmanWaypointsSearchState, PacmanAction> {
+
+    static final int STATE_INDEX_LIMIT = 1 << 24;
 
     private final Maze maze;
     private final Coordinate startLocation;
 
-    private final List<Coordinate> cornersLocations;
+    private final List<Coordinate> waypointLocations;
+    /**
+     * waypointIndices maps a cell to the number of its waypoint, or -1
+     */
+    private final int[] waypointIndices;
+    private final int cellBits;
+    private final long allVisited;
+    private final PacmanWaypointsSearchState[] states;
 
-    public PacmanCornersProblem(Maze maze) {
+    /**
+     * Uses the food dots of the maze as waypoints
+     */
+    public PacmanWaypointsProblem(Maze maze) {
+        this(maze, maze.getFoodCoordinates());
+    }
+
+    public PacmanWaypointsProblem(Maze maze, List<Coordinate> waypoints) {
         this.maze = maze;
         this.startLocation = maze.getPacmanLocation();
 
-        this.cornersLocations = Arrays.asList(
-                maze.getBottomLeftCorner(),
-                maze.getTopLeftCorner(),
-                maze.getTopRightCorner(),
-                maze.getBottomRightCorner()
-        );
+        this.waypointLocations = new ArrayList<>(new LinkedHashSet<>(waypoints));
+        this.cellBits = Math.max(1, 64 - Long.numberOfLeadingZeros(maze.getCellCount() - 1));
+        if (waypointLocations.size() > 64 - cellBits) {
+            throw new IllegalArgumentException("At most " + (64 - cellBits) + " waypoints are supported in this maze, got "
+                    + waypointLocations.size());
+        }
 
+        this.waypointIndices = new int[maze.getCellCount()];
+        Arrays.fill(waypointIndices, -1);
+        for (int i = 0; i < waypointLocations.size(); i++) {
+            waypointIndices[maze.getCellIndex(waypointLocations.get(i))] = i;
+        }
+        this.allVisited = (1L << waypointLocations.size()) - 1;
+
+        int stateBits = cellBits + waypointLocations.size();
+        this.states = stateBits < 31 && (1 << stateBits) <= STATE_INDEX_LIMIT ?
+                new PacmanWaypointsSearchState[1 << stateBits] : null;
     }
 
     @Override
-    public PacmanCornersSearchState getStartState() {
-
-        return new PacmanCornersSearchState(startLocation, getNextCornerCoordinates(startLocation,this.cornersLocations));
+    public PacmanWaypointsSearchState getStartState() {
+        int cell = maze.getCellIndex(startLocation);
+        return getState(cell, visit(cell, 0));
     }
 
     @Override
-    public boolean isGoalState(PacmanCornersSearchState state) {
-        return state.cornerCoordinates.isEmpty();
+    public boolean isGoalState(PacmanWaypointsSearchState state) {
+        return state.getVisited() == allVisited;
     }
 
     @Override
-    public Collection<SuccessorInfo<PacmanCornersSearchState, PacmanAction>> expand(PacmanCornersSearchState state) {
-
-        Collection<SuccessorInfo<PacmanCornersSearchState, PacmanAction>> successors = new ArrayList<>();
-        for (PacmanAction action : getActions(state)) {
-            successors.add(new SuccessorInfo<>(getSuccessor(state, action), action, getCost(state, action)));
+    public Collection<SuccessorInfo<PacmanWaypointsSearchState, PacmanAction>> expand(PacmanWaypointsSearchState state) {
+
+        Collection<SuccessorInfo<PacmanWaypointsSearchState, PacmanAction>> successors = new ArrayList<>(4);
+        int cell = state.getCell();
+        long visited = state.getVisited();
+        for (int slot = maze.getNeighbourStart(cell); slot < maze.getNeighbourEnd(cell); slot++) {
+            int nextCell = maze.getNeighbourCell(slot);
+            successors.add(new SuccessorInfo<>(getState(nextCell, visit(nextCell, visited)), maze.getNeighbourAction(slot), 1));
         }
 
         doBookKeeping(state); // do not remove
@@ -223,40 +472,106 @@ class PacmanCornersProblem extends SearchProblem<PacmanCornersSearchState, Pacma
     }
 
     @Override
-    public List<PacmanAction> getActions(PacmanCornersSearchState state) {
-        return maze.getPacmanActions(state.pacmanLocation);
+    public void expand(PacmanWaypointsSearchState state, SuccessorBuffer<PacmanWaypointsSearchState, PacmanAction> successors) {
+        successors.clear();
+        int cell = state.getCell();
+        long visited = state.getVisited();
+        for (int slot = maze.getNeighbourStart(cell); slot < maze.getNeighbourEnd(cell); slot++) {
+            int nextCell = maze.getNeighbourCell(slot);
+            successors.add(getState(nextCell, visit(nextCell, visited)), maze.getNeighbourAction(slot), 1);
+        }
+
+        doBookKeeping(state); // do not remove
+    }
+
+    @Override
+    public List<PacmanAction> getActions(PacmanWaypointsSearchState state) {
+        return maze.getPacmanActions(state.getCell());
     }
 
     @Override
-    public PacmanCornersSearchState getSuccessor(PacmanCornersSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+    public PacmanWaypointsSearchState getSuccessor(PacmanWaypointsSearchState state, PacmanAction action) {
+        if (! maze.isLegalAction(state.getCell(), action)) {
             throw new RuntimeException("Invalid arguments. Action" + action + "is not valid from state" + state);
         }
 
-        Coordinate nextLocation = state.pacmanLocation.add(action.toVector());
-        return new PacmanCornersSearchState(nextLocation,this.getNextCornerCoordinates(nextLocation, state.cornerCoordinates));
+        int nextCell = maze.getNeighbourCell(state.getCell(), action);
+        return getState(nextCell, visit(nextCell, state.getVisited()));
     }
 
     @Override
-    public double getCost(PacmanCornersSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+    public double getCost(PacmanWaypointsSearchState state, PacmanAction action) {
+        if (! maze.isLegalAction(state.getCell(), action)) {
             // action leads into the wall
             return 999999;
         }
         return 1;
     }
 
+    @Override
+    public boolean hasIntegerCosts() {
+        return true;
+    }
+
+    @Override
+    public int getStateIndexBound() {
+        return states == null ? 0 : states.length;
+    }
+
+    @Override
+    public int getStateIndex(PacmanWaypointsSearchState state) {
+        return (int) state.key;
+    }
+
     /**
-     Computes the updated food coordinates given a new position.
+     * @return the visited mask after entering cell
      */
-    private List<Coordinate> getNextCornerCoordinates(Coordinate position, List<Coordinate> cornerCoordinates) {
-        List<Coordinate> nextCornerCoordinates = cornerCoordinates;
-        if (cornerCoordinates.contains(position)) {
-            nextCornerCoordinates = new ArrayList<>(cornerCoordinates);
-            nextCornerCoordinates.remove(position);
-            //we need to remove it from corner coordinates as well
+    private long visit(int cell, long visited) {
+        int waypoint = waypointIndices[cell];
+        return waypoint < 0 ? visited : visited | (1L << waypoint);
+    }
+
+    private PacmanWaypointsSearchState getState(int cell, long visited) {
+        long key = (visited << cellBits) | cell;
+        if (states == null) {
+            return new PacmanWaypointsSearchState(key, cellBits);
+        }
+        PacmanWaypointsSearchState state = states[(int) key];
+        if (state == null) {
+            state = new PacmanWaypointsSearchState(key, cellBits);
+            states[(int) key] = state;
         }
-        return nextCornerCoordinates;
+        return state;
+    }
+
+    public Coordinate getLocation(PacmanWaypointsSearchState state) {
+        return maze.getCellCoordinate(state.getCell());
+    }
+
+    /**
+     * @return the waypoints, bit i of the visited mask of a state corresponds to waypoint i
+     */
+    public List<Coordinate> getWaypointLocations() {
+        return waypointLocations;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+}
+
+/**
+ * Formalisation of Corners problem for Pacman: visit the four corners of the maze.
+ */
+class PacmanCornersProblem extends PacmanWaypointsProblem {
+
+    public PacmanCornersProblem(Maze maze) {
+        super(maze, Arrays.asList(
+                maze.getBottomLeftCorner(),
+                maze.getTopLeftCorner(),
+                maze.getTopRightCorner(),
+                maze.getBottomRightCorner()
+        ));
     }
 }
 
@@ -272,40 +587,65 @@ class PacmanFoodSearchProblem extends SearchProblem<PacmanFoodSearchState, Pacma
 
     private final List<Coordinate> foodCoordinates;
 
+    /**
+     * Food dots are numbered in the order of foodCoordinates, the remaining food of a state
+     * is a bitset over these numbers. foodIndices maps a cell of the maze to the number
+     * of its dot, or -1 if there is no dot in the cell.
+     */
+    private final Coordinate[] foodLocations;
+    private final int[] foodIndices;
+
+    /**
+     * Random keys for Zobrist hashing: the hash of a state is the xor of the keys
+     * of its remaining dots and the key of the pacman cell.
+     */
+    private final long[] foodKeys;
+    private final long[] cellKeys;
+
     public PacmanFoodSearchProblem(Maze maze) {
         this.maze = maze;
         this.startLocation = maze.getPacmanLocation();
 
         this.foodCoordinates = maze.getFoodCoordinates();
+
+        Random random = new Random(5280);
+        foodLocations = foodCoordinates.toArray(new Coordinate[0]);
+        foodKeys = new long[foodLocations.length];
+        foodIndices = new int[maze.getCellCount()];
+        Arrays.fill(foodIndices, -1);
+        for (int i = 0; i < foodLocations.length; i++) {
+            foodIndices[maze.getCellIndex(foodLocations[i])] = i;
+            foodKeys[i] = random.nextLong();
+        }
+        cellKeys = new long[maze.getCellCount()];
+        for (int i = 0; i < cellKeys.length; i++) {
+            cellKeys[i] = random.nextLong();
+        }
     }
 
     @Override
     public PacmanFoodSearchState getStartState() {
-        return new PacmanFoodSearchState(startLocation, foodCoordinates);
+        long[] food = new long[(foodLocations.length + 63) / 64];
+        long foodHash = 0;
+        for (int i = 0; i < foodLocations.length; i++) {
+            food[i >> 6] |= 1L << i;
+            foodHash ^= foodKeys[i];
+        }
+        int cell = maze.getCellIndex(startLocation);
+        return new PacmanFoodSearchState(maze.getCellCoordinate(cell), cell, food, foodLocations.length,
+                                         foodLocations, foodHash, foodHash ^ cellKeys[cell]);
     }
 
     @Override
     public boolean isGoalState(PacmanFoodSearchState state) {
-        return state.foodCoordinates.isEmpty();
-    }
-
-    /**
-     Computes the updated food coordinates given a new position.
-     */
-    private List<Coordinate> getNextFoodCoordinates(Coordinate position, List<Coordinate> foodCoordinates) {
-        List<Coordinate> nextFoodCoordinates = foodCoordinates;
-        if (foodCoordinates.contains(position)) {
-            nextFoodCoordinates = new ArrayList<>(foodCoordinates);
-            nextFoodCoordinates.remove(position);
-        }
-        return nextFoodCoordinates;
+        return state.foodCount == 0;
     }
 
     @Override
     public Collection<SuccessorInfo<PacmanFoodSearchState, PacmanAction>> expand(PacmanFoodSearchState state) {
-        Collection<SuccessorInfo<PacmanFoodSearchState, PacmanAction>> successors = new ArrayList<>();
-        for (PacmanAction action : getActions(state)) {
-            successors.add(new SuccessorInfo<>(getSuccessor(state, action), action, getCost(state, action)));
+        Collection<SuccessorInfo<PacmanFoodSearchState, PacmanAction>> successors = new ArrayList<>(4);
+        for (int slot = maze.getNeighbourStart(state.cell); slot < maze.getNeighbourEnd(state.cell); slot++) {
+            successors.add(new SuccessorInfo<>(getSuccessor(state, maze.getNeighbourCell(slot)), maze.getNeighbourAction(slot), 1));
         }
 
         doBookKeeping(state); // do not remove
@@ -313,30 +653,70 @@ class PacmanFoodSearchProblem extends SearchProblem<PacmanFoodSearchState, Pacma
         return successors;
     }
 
+    @Override
+    public void expand(PacmanFoodSearchState state, SuccessorBuffer<PacmanFoodSearchState, PacmanAction> successors) {
+        successors.clear();
+        for (int slot = maze.getNeighbourStart(state.cell); slot < maze.getNeighbourEnd(state.cell); slot++) {
+            successors.add(getSuccessor(state, maze.getNeighbourCell(slot)), maze.getNeighbourAction(slot), 1);
+        }
+
+        doBookKeeping(state); // do not remove
+    }
+
     @Override
     public List<PacmanAction> getActions(PacmanFoodSearchState state) {
-        return maze.getPacmanActions(state.pacmanLocation);
+        return maze.getPacmanActions(state.cell);
     }
 
     @Override
     public PacmanFoodSearchState getSuccessor(PacmanFoodSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+        if (! maze.isLegalAction(state.cell, action)) {
             throw new RuntimeException("Invalid arguments. Action" + action + "is not valid from state" + state);
         }
 
-        Coordinate nextLocation = state.pacmanLocation.add(action.toVector());
-        return new PacmanFoodSearchState(nextLocation,
-                                         this.getNextFoodCoordinates(nextLocation, state.foodCoordinates));
+        return getSuccessor(state, maze.getNeighbourCell(state.cell, action));
+    }
+
+    /**
+     * Moves pacman and eats the dot in the next cell, if any. The food bitset is only
+     * copied when a dot is eaten, otherwise it is shared with the parent state.
+     * The hash is updated incrementally by xor-ing out the keys of the old cell and of the eaten dot
+     * and xor-ing in the key of the new cell.
+     */
+    private PacmanFoodSearchState getSuccessor(PacmanFoodSearchState state, int nextCell) {
+        long[] food = state.food;
+        int foodCount = state.foodCount;
+        long foodHash = state.foodHash;
+        int foodIndex = foodIndices[nextCell];
+        if (foodIndex >= 0 && state.hasFood(foodIndex)) {
+            food = food.clone();
+            food[foodIndex >> 6] &= ~(1L << foodIndex);
+            foodCount--;
+            foodHash ^= foodKeys[foodIndex];
+        }
+        long hash = state.hash ^ state.foodHash ^ foodHash ^ cellKeys[state.cell] ^ cellKeys[nextCell];
+
+        return new PacmanFoodSearchState(maze.getCellCoordinate(nextCell), nextCell, food, foodCount,
+                                         foodLocations, foodHash, hash);
     }
 
     @Override
     public double getCost(PacmanFoodSearchState state, PacmanAction action) {
-        if (! getActions(state).contains(action)) {
+        if (! maze.isLegalAction(state.cell, action)) {
             // action leads into the wall
             return 999999;
         }
         return 1;
     }
+
+    @Override
+    public boolean hasIntegerCosts() {
+        return true;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
 }
 
 /**************************************************************
@@ -346,16 +726,34 @@ class PacmanFoodSearchProblem extends SearchProblem<PacmanFoodSearchState, Pacma
 interface SearchState {
 }
 
+/**
+ * A state identified by a single long: two states of a problem are equal if and only if their keys are equal.
+ * Caches like CachedHeuristic then store the key instead of the state object.
+ */
+interface KeyedSearchState extends SearchState {
+    long getKey();
+}
+
 /**
  * Formalisation of search state for PacmanPositionSearchProblem.
  * Implemented for you.
  * You should not need to modify this class.
  */
-class PacmanPositionSearchState implements SearchState {
-    Coordinate pacmanLocation;
+class PacmanPositionSearchState implements KeyedSearchState {
+    final Coordinate pacmanLocation;
+    /**
+     * Index of pacmanLocation in the maze, see Maze.getCellIndex
+     */
+    final int cell;
 
-    public PacmanPositionSearchState(Coordinate pacmanLocation) {
+    public PacmanPositionSearchState(Coordinate pacmanLocation, int cell) {
         this.pacmanLocation = pacmanLocation;
+        this.cell = cell;
+    }
+
+    @Override
+    public long getKey() {
+        return cell;
     }
 
     @Override
@@ -368,26 +766,41 @@ class PacmanPositionSearchState implements SearchState {
         if (!(o instanceof PacmanPositionSearchState))
             return false;
 
-        return pacmanLocation.equals(((PacmanPositionSearchState) o).pacmanLocation);
+        return cell == ((PacmanPositionSearchState) o).cell;
     }
 
     @Override
     public int hashCode() {
-        return pacmanLocation.hashCode();
+        return cell;
     }
 }
 
 /**
- * Formalisation of search state for PacmanCornersProblem.
- * You need to implement this class.
+ * Formalisation of search state for PacmanWaypointsProblem and PacmanCornersProblem.
+ *
+ * The state is a single long: the lower cellBits bits hold the index of the pacman cell
+ * (see Maze.getCellIndex), the upper bits hold the mask of visited waypoints.
  */
-class PacmanCornersSearchState implements SearchState {
-    Coordinate pacmanLocation;
-    List<Coordinate> cornerCoordinates;
+class PacmanWaypointsSearchState implements KeyedSearchState {
+    final long key;
+    final int cellBits;
 
-    public PacmanCornersSearchState(Coordinate pacmanLocation, List<Coordinate> cornerCoordinates) {
-        this.pacmanLocation = pacmanLocation;
-        this.cornerCoordinates = cornerCoordinates;
+    public PacmanWaypointsSearchState(long key, int cellBits) {
+        this.key = key;
+        this.cellBits = cellBits;
+    }
+
+    public int getCell() {
+        return (int) (key & ((1L << cellBits) - 1));
+    }
+
+    public long getVisited() {
+        return key >>> cellBits;
+    }
+
+    @Override
+    public long getKey() {
+        return key;
     }
 
     /**
@@ -395,29 +808,20 @@ class PacmanCornersSearchState implements SearchState {
      */
     @Override
     public String toString() {
-        return pacmanLocation.toString() + ", " + cornerCoordinates.toString();
+        return "cell " + getCell() + ", visited " + Long.toBinaryString(getVisited());
     }
 
-    /**
-     * You need to implement this method properly for correct functioning
-     * of sets.
-     */
     @Override
     public boolean equals(Object o) {
-        if (!(o instanceof PacmanCornersSearchState))
+        if (!(o instanceof PacmanWaypointsSearchState))
             return false;
 
-        return pacmanLocation.equals(((PacmanCornersSearchState) o).pacmanLocation) &&
-                cornerCoordinates.equals(((PacmanCornersSearchState) o).cornerCoordinates);
+        return key == ((PacmanWaypointsSearchState) o).key;
     }
 
-    /**
-     * You need to implement this method properly for correct functioning
-     * of sets.
-     */
     @Override
     public int hashCode() {
-        return 31 * pacmanLocation.hashCode() + cornerCoordinates.hashCode();
+        return Long.hashCode(key);
     }
 }
 
@@ -428,16 +832,67 @@ class PacmanCornersSearchState implements SearchState {
  */
 class PacmanFoodSearchState implements SearchState {
     Coordinate pacmanLocation;
-    List<Coordinate> foodCoordinates;
+    int cell;
+    /**
+     * Bitset over the dots of the problem, bit i is set if dot i has not been eaten yet.
+     * Shared between states, must not be modified.
+     */
+    long[] food;
+    int foodCount;
+    /**
+     * Locations of all dots of the problem, indexed by the bits of food
+     */
+    Coordinate[] foodLocations;
+    /**
+     * Zobrist hash of the remaining food, and of the remaining food together with the pacman cell
+     */
+    long foodHash;
+    long hash;
 
-    public PacmanFoodSearchState(Coordinate pacmanLocation, List<Coordinate> foodCoordinates) {
+    public PacmanFoodSearchState(Coordinate pacmanLocation, int cell, long[] food, int foodCount,
+                                 Coordinate[] foodLocations, long foodHash, long hash) {
         this.pacmanLocation = pacmanLocation;
-        this.foodCoordinates = foodCoordinates;
+        this.cell = cell;
+        this.food = food;
+        this.foodCount = foodCount;
+        this.foodLocations = foodLocations;
+        this.foodHash = foodHash;
+        this.hash = hash;
+    }
+
+    public boolean hasFood(int i) {
+        return (food[i >> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Iterates over the remaining dots: for (int i = nextFood(0); i >= 0; i = nextFood(i + 1))
+     *
+     * @return the number of the first remaining dot not smaller than from, or -1 if there is none
+     */
+    public int nextFood(int from) {
+        int word = from >> 6;
+        if (word >= food.length)
+            return -1;
+        long bits = food[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == food.length)
+                return -1;
+            bits = food[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public List<Coordinate> getFoodCoordinates() {
+        List<Coordinate> coordinates = new ArrayList<>(foodCount);
+        for (int i = nextFood(0); i >= 0; i = nextFood(i + 1)) {
+            coordinates.add(foodLocations[i]);
+        }
+        return coordinates;
     }
 
     @Override
     public String toString() {
-        return pacmanLocation.toString() + ", " + foodCoordinates.toString();
+        return pacmanLocation.toString() + ", " + getFoodCoordinates().toString();
     }
 
     @Override
@@ -445,13 +900,14 @@ class PacmanFoodSearchState implements SearchState {
         if (!(o instanceof PacmanFoodSearchState))
             return false;
 
-        return pacmanLocation.equals(((PacmanFoodSearchState) o).pacmanLocation) &&
-                foodCoordinates.equals(((PacmanFoodSearchState) o).foodCoordinates);
+        PacmanFoodSearchState other = (PacmanFoodSearchState) o;
+        return cell == other.cell && hash == other.hash && foodCount == other.foodCount &&
+                (food == other.food || Arrays.equals(food, other.food));
     }
 
     @Override
     public int hashCode() {
-        return 31 * pacmanLocation.hashCode() + foodCoordinates.hashCode();
+        return (int) (hash ^ (hash >>> 32));
     }
 }
 
@@ -529,6 +985,209 @@ enum PacmanAction implements Action {
  */
 interface SearchHeuristic<S,A> {
     Double value(S state, SearchProblem<S,A> problem);
+
+    /**
+     * Heuristics that only return integer values override this method,
+     * see SearchProblem.hasIntegerCosts.
+     *
+     * @return whether all values of the heuristic are integers
+     */
+    default boolean isIntegral() {
+        return false;
+    }
+
+    /**
+     * Consistent heuristics override this method. A heuristic is consistent if h(s) <= c(s, a) + h(s')
+     * for every action a leading from s to s' (and h is 0 at goal states). A* with a consistent heuristic
+     * expands nodes in non-decreasing order of f, which allows monotone frontiers like Util.RadixHeap.
+     *
+     * @return whether the heuristic is consistent for every problem it is used with
+     */
+    default boolean isConsistent() {
+        return false;
+    }
+
+    /**
+     * Heuristics that return a finite value for states from which no goal can be reached, far above
+     * the values of other states, override this method.
+     *
+     * @return that value for the problem, or infinity if the heuristic has none
+     */
+    default double unreachableValue(SearchProblem<S,A> problem) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Estimate of the cost from the start state to 'state', used by the backward search of
+     * bidirectional A* (see BidirectionalSearchProblem). Like value, it must not overestimate.
+     *
+     * @return 0 unless overridden, which is always admissible
+     */
+    default Double reverseValue(S state, SearchProblem<S,A> problem) {
+        return 0.0;
+    }
+}
+
+/**
+ * Decorator that memoises the values of another heuristic, which are pure functions of the state and the problem.
+ * At most 'capacity' values are kept; when the cache is full, a value is evicted by the CLOCK algorithm:
+ * a hand sweeps over the entries, clearing the referenced bit of the entries hit since its last pass
+ * and evicting the first entry without it.
+ *
+ * Entries live in parallel slot arrays, indexed by an open-addressing table with linear probing.
+ * States implementing KeyedSearchState are stored by their key only; for other states the key is
+ * the hash code and the state object is kept to resolve collisions with equals.
+ * The cache is cleared when the problem changes. Hit, miss and eviction counts are kept across problems.
+ * The cache is not thread-safe, pastar does not accept it.
+ *
+ * @param <S>
+ * @param <A>
+ */
+class CachedHeuristic<S,A> implements SearchHeuristic<S,A> {
+    private final SearchHeuristic<S,A> heuristic;
+    private final int capacity;
+
+    private final long[] keys;
+    private final Object[] states;
+    private final double[] values;
+    private final boolean[] referenced;
+    /**
+     * Open-addressing table, an entry is a slot number plus one, 0 for empty positions
+     */
+    private final int[] table;
+    private int size;
+    private int hand;
+
+    private SearchProblem<S,A> problem;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param capacity largest number of cached values, at most 2^28
+     */
+    public CachedHeuristic(SearchHeuristic<S,A> heuristic, int capacity) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Cache capacity must be between 1 and 2^28, got " + capacity);
+        }
+        this.heuristic = heuristic;
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.states = new Object[capacity];
+        this.values = new double[capacity];
+        this.referenced = new boolean[capacity];
+        this.table = new int[Integer.highestOneBit(capacity) << 2];
+    }
+
+    @Override
+    public Double value(S state, SearchProblem<S, A> problem) {
+        if (problem != this.problem) {
+            clear();
+            this.problem = problem;
+        }
+
+        boolean keyed = state instanceof KeyedSearchState;
+        long key = keyed ? ((KeyedSearchState) state).getKey() : state.hashCode();
+        int mask = table.length - 1;
+        for (int i = home(key); table[i] != 0; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (keys[slot] == key && (keyed ? states[slot] == null : state.equals(states[slot]))) {
+                referenced[slot] = true;
+                hitCount++;
+                return values[slot];
+            }
+        }
+
+        missCount++;
+        double value = heuristic.value(state, problem);
+        int slot = size < capacity ? size++ : evict();
+        keys[slot] = key;
+        states[slot] = keyed ? null : state;
+        values[slot] = value;
+        int i = home(key);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+        return value;
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (table.length - 1);
+    }
+
+    /**
+     * Advances the clock hand to the first entry that was not referenced since the last pass,
+     * and removes it from the table, shifting back the entries that probed past it
+     *
+     * @return the freed slot
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+        }
+        int slot = hand;
+        hand = hand + 1 == capacity ? 0 : hand + 1;
+
+        int mask = table.length - 1;
+        int gap = home(keys[slot]);
+        while (table[gap] != slot + 1) {
+            gap = (gap + 1) & mask;
+        }
+        for (int i = (gap + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (((i - home(keys[table[i] - 1])) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+        states[slot] = null;
+        evictionCount++;
+        return slot;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(states, null);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return heuristic.isIntegral();
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return heuristic.isConsistent();
+    }
+
+    @Override
+    public double unreachableValue(SearchProblem<S, A> problem) {
+        return heuristic.unreachableValue(problem);
+    }
+
+    @Override
+    public Double reverseValue(S state, SearchProblem<S, A> problem) {
+        return heuristic.reverseValue(state, problem);
+    }
+
+    public String toString() { return heuristic + " (cached, " + capacity + " entries)"; }
 }
 
 /**
@@ -548,6 +1207,16 @@ class NullHeuristic<S,A> implements SearchHeuristic<S,A> {
         return 0.0;
     }
 
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
     public String toString() { return this.getClass().getName(); }
 }
 
@@ -570,40 +1239,240 @@ class ManhattanDistanceHeuristic<S,A> implements SearchHeuristic<S,A> {
         return 0.0;
     }
 
+    @Override
+    public Double reverseValue(S state, SearchProblem<S, A> problem) {
+
+        if (problem instanceof PacmanPositionSearchProblem && state instanceof PacmanPositionSearchState) {
+            return ((PacmanPositionSearchState) state).pacmanLocation.manhattanDistance(((PacmanPositionSearchProblem) problem).getStartState().pacmanLocation);
+        }
+        return 0.0;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    public String toString() { return this.getClass().getName(); }
+}
+
+/**
+ * The length of a shortest path to the goal in the maze, an exact heuristic for PacmanPositionSearchProblem.
+ * The distances come from a MazeDistanceOracle with the goal as the only source, computed once per maze.
+ *
+ * @param <S>
+ * @param <A>
+ */
+class MazeDistanceHeuristic<S,A> implements SearchHeuristic<S,A> {
+    private volatile PacmanPositionSearchProblem problem;
+    private MazeDistanceOracle oracle;
+
+    public MazeDistanceHeuristic() {}
+
+    @Override
+    public Double value(S state, SearchProblem<S, A> problem) {
+
+        if (problem instanceof PacmanPositionSearchProblem && state instanceof PacmanPositionSearchState) {
+            PacmanPositionSearchProblem positionProblem = (PacmanPositionSearchProblem) problem;
+            if (positionProblem != this.problem)
+                initialise(positionProblem);
+            int distance = oracle.distanceFromSource(0, ((PacmanPositionSearchState) state).cell);
+            // the goal cannot be reached at all, any value is admissible
+            return distance < 0 ? (double) positionProblem.getMaze().getCellCount() : distance;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Synchronized, and the problem is published last, so that threads sharing the heuristic (see pastar)
+     * only use the oracle once it is set
+     */
+    private synchronized void initialise(PacmanPositionSearchProblem problem) {
+        if (problem == this.problem)
+            return;
+        this.oracle = problem.getMaze().getDistanceOracle(List.of(problem.getGoalLocation()));
+        this.problem = problem;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    @Override
+    public double unreachableValue(SearchProblem<S, A> problem) {
+        return problem instanceof PacmanPositionSearchProblem
+                ? ((PacmanPositionSearchProblem) problem).getMaze().getCellCount() : Double.POSITIVE_INFINITY;
+    }
+
     public String toString() { return this.getClass().getName(); }
 }
 
 /**
- * Heuristic for PacmanCornersProblem.
- * You need to implement it.
+ * Heuristic for PacmanCornersProblem, works for any PacmanWaypointsProblem.
+ * The value is the length of the shortest tour from pacman over the unvisited waypoints under maze distances,
+ * which is the true remaining cost, so it is admissible and consistent.
+ *
+ * Tours are precomputed once per problem by Held-Karp dynamic programming over the waypoint subsets:
+ * tours[mask * k + i] is the length of the shortest path that starts at waypoint i and visits all waypoints in mask.
+ * A state is then evaluated by trying each unvisited waypoint as the first one, at most four lookups for the corners.
+ * With more than MAX_TOUR_WAYPOINTS waypoints the table is too large and the value falls back to the largest
+ * maze distance to an unvisited waypoint.
+ *
  * @param <S>
  * @param <A>
  */
 class CornersHeuristic<S,A> implements SearchHeuristic<S,A> {
+    static final int MAX_TOUR_WAYPOINTS = 16;
+
+    private volatile PacmanWaypointsProblem problem;
+    private MazeDistanceOracle oracle;
+    private int waypointCount;
+    private int[] tours;
+    /**
+     * Value of states from which some waypoint cannot be reached, any value is admissible for them
+     */
+    private int unreachableValue;
+
     public CornersHeuristic() {}
 
     @Override
     public Double value(S state, SearchProblem<S, A> problem) {
 
-        if (problem instanceof PacmanCornersProblem && state instanceof PacmanCornersSearchState) {
+        if (problem instanceof PacmanWaypointsProblem && state instanceof PacmanWaypointsSearchState) {
+
+            PacmanWaypointsProblem waypointsProblem = (PacmanWaypointsProblem) problem;
+            PacmanWaypointsSearchState waypointsState = (PacmanWaypointsSearchState) state;
+            if (waypointsProblem != this.problem)
+                initialise(waypointsProblem);
+
+            int cell = waypointsState.getCell();
+            long remaining = ~waypointsState.getVisited() & ((1L << waypointCount) - 1);
+            int best = tours == null ? 0 : Integer.MAX_VALUE;
+            for (long bits = remaining; bits != 0; bits &= bits - 1) {
+                int i = Long.numberOfTrailingZeros(bits);
+                int distance = oracle.distanceFromSource(i, cell);
+                if (distance < 0)
+                    return (double) unreachableValue;
+                if (tours == null)
+                    best = Math.max(best, distance);
+                else
+                    best = Math.min(best, distance + tours[(int) remaining * waypointCount + i]);
+            }
+            return remaining == 0 ? 0.0 : (double) Math.min(best, unreachableValue);
+        }
 
-            return  ((PacmanCornersSearchState) state).cornerCoordinates.stream().mapToDouble(e->e.manhattanDistance(((PacmanCornersSearchState) state).pacmanLocation)).max().orElse(0.0);
+        return 0.0;
+    }
+
+    /**
+     * Synchronized, and the problem is published last, see MazeDistanceHeuristic
+     */
+    private synchronized void initialise(PacmanWaypointsProblem problem) {
+        if (problem == this.problem)
+            return;
+        Maze maze = problem.getMaze();
+        List<Coordinate> waypoints = problem.getWaypointLocations();
+        this.oracle = maze.getDistanceOracle(waypoints);
+        this.waypointCount = waypoints.size();
+        this.unreachableValue = maze.getCellCount();
+        this.tours = waypointCount <= MAX_TOUR_WAYPOINTS ? computeTours(maze, waypoints) : null;
+        this.problem = problem;
+    }
 
+    /**
+     * Tour lengths by Util.shortestSubsetPaths, tours that need an unreachable waypoint get unreachableValue
+     */
+    private int[] computeTours(Maze maze, List<Coordinate> waypoints) {
+        int k = waypointCount;
+        int[] distances = new int[k * k];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                int distance = oracle.distanceFromSource(i, maze.getCellIndex(waypoints.get(j)));
+                distances[i * k + j] = distance < 0 ? unreachableValue : distance;
+            }
         }
+        return Util.shortestSubsetPaths(distances, k, unreachableValue);
+    }
 
-        return 0.0;
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    @Override
+    public double unreachableValue(SearchProblem<S, A> problem) {
+        return problem instanceof PacmanWaypointsProblem
+                ? ((PacmanWaypointsProblem) problem).getMaze().getCellCount() : Double.POSITIVE_INFINITY;
     }
 
     public String toString() { return this.getClass().getName(); }
 }
 
 /**
- * Heuristic for PacmanFoodSearchProblem.
- * You need to implement it.
+ * Heuristic for PacmanFoodSearchProblem: the maze distance to the nearest dot plus the weight
+ * of a minimum spanning tree over the remaining dots, with maze distances as edge weights.
+ * Any path eating all dots first reaches some dot and then connects the rest, so the value is admissible;
+ * eating a dot lowers the tree weight by at most the distance to the nearest remaining dot,
+ * so it is also consistent.
+ *
+ * Distances come from a MazeDistanceOracle with the dots as sources. The tree weight only depends
+ * on the remaining food, which many states share, so it is memoised in a direct-mapped table
+ * indexed by the Zobrist hash of the food and verified against the food bits.
+ *
  * @param <S>
  * @param <A>
  */
 class FoodHeuristic<S,A> implements SearchHeuristic<S,A> {
+    /**
+     * Number of memoised tree weights, a power of two
+     */
+    static final int MEMO_SIZE = 1 << 16;
+
+    private volatile PacmanFoodSearchProblem problem;
+    private MazeDistanceOracle oracle;
+    private int[] foodCells;
+    /**
+     * Value of states from which some dot cannot be reached, any value is admissible for them
+     */
+    private int unreachableValue;
+
+    /**
+     * Entries are immutable, so threads sharing the heuristic (see pastar) see either a whole entry or an older one
+     */
+    private MemoEntry[] memo;
+    /**
+     * Scratch arrays of Prim's algorithm, the remaining dots and their distances to the tree, one pair per thread
+     */
+    private final ThreadLocal<int[][]> treeScratch = new ThreadLocal<>();
+
+    private static final class MemoEntry {
+        final long foodHash;
+        final long[] food;
+        final int weight;
+
+        MemoEntry(long foodHash, long[] food, int weight) {
+            this.foodHash = foodHash;
+            this.food = food;
+            this.weight = weight;
+        }
+    }
+
     public FoodHeuristic() {}
 
     @Override
@@ -611,13 +1480,272 @@ class FoodHeuristic<S,A> implements SearchHeuristic<S,A> {
 
         if (problem instanceof PacmanFoodSearchProblem && state instanceof PacmanFoodSearchState) {
 
-            return  ((PacmanFoodSearchState) state).foodCoordinates.stream().mapToDouble(e->e.manhattanDistance(((PacmanFoodSearchState) state).pacmanLocation)).max().orElse(0.0);
-
+            PacmanFoodSearchState foodState = (PacmanFoodSearchState) state;
+            if (foodState.foodCount == 0)
+                return 0.0;
+            if (problem != this.problem)
+                initialise((PacmanFoodSearchProblem) problem, foodState.foodLocations);
+
+            int nearest = Integer.MAX_VALUE;
+            for (int i = foodState.nextFood(0); i >= 0; i = foodState.nextFood(i + 1)) {
+                int distance = oracle.distanceFromSource(i, foodState.cell);
+                if (distance < 0)
+                    return (double) unreachableValue;
+                nearest = Math.min(nearest, distance);
+            }
+            return (double) nearest + spanningTreeWeight(foodState);
         }
 
         return 0.0;
     }
 
+    /**
+     * Synchronized, and the problem is published last, see MazeDistanceHeuristic
+     */
+    private synchronized void initialise(PacmanFoodSearchProblem problem, Coordinate[] foodLocations) {
+        if (problem == this.problem)
+            return;
+        Maze maze = problem.getMaze();
+        this.oracle = maze.getDistanceOracle(Arrays.asList(foodLocations));
+        this.foodCells = new int[foodLocations.length];
+        for (int i = 0; i < foodLocations.length; i++) {
+            foodCells[i] = maze.getCellIndex(foodLocations[i]);
+        }
+        this.unreachableValue = maze.getCellCount();
+        this.memo = new MemoEntry[MEMO_SIZE];
+        this.problem = problem;
+    }
+
+    /**
+     * Weight of a minimum spanning tree over the remaining dots, by Prim's algorithm on the complete graph;
+     * every dot is reachable from pacman when this is called, so all the distances are defined
+     */
+    private int spanningTreeWeight(PacmanFoodSearchState state) {
+        int slot = (int) state.foodHash & (MEMO_SIZE - 1);
+        MemoEntry entry = memo[slot];
+        if (entry != null && entry.foodHash == state.foodHash && (entry.food == state.food || Arrays.equals(entry.food, state.food)))
+            return entry.weight;
+
+        int[][] scratch = treeScratch.get();
+        if (scratch == null || scratch[0].length < state.foodCount) {
+            scratch = new int[2][foodCells.length];
+            treeScratch.set(scratch);
+        }
+        int[] treeFood = scratch[0];
+        int[] treeDistances = scratch[1];
+        int size = 0;
+        for (int i = state.nextFood(0); i >= 0; i = state.nextFood(i + 1)) {
+            treeFood[size++] = i;
+        }
+        int root = treeFood[--size];
+        for (int j = 0; j < size; j++) {
+            treeDistances[j] = oracle.distanceFromSource(root, foodCells[treeFood[j]]);
+        }
+        int weight = 0;
+        while (size > 0) {
+            int closest = 0;
+            for (int j = 1; j < size; j++) {
+                if (treeDistances[j] < treeDistances[closest])
+                    closest = j;
+            }
+            weight += treeDistances[closest];
+            int added = treeFood[closest];
+            size--;
+            treeFood[closest] = treeFood[size];
+            treeDistances[closest] = treeDistances[size];
+            for (int j = 0; j < size; j++) {
+                treeDistances[j] = Math.min(treeDistances[j], oracle.distanceFromSource(added, foodCells[treeFood[j]]));
+            }
+        }
+
+        memo[slot] = new MemoEntry(state.foodHash, state.food, weight);
+        return weight;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    @Override
+    public double unreachableValue(SearchProblem<S, A> problem) {
+        return problem instanceof PacmanFoodSearchProblem
+                ? ((PacmanFoodSearchProblem) problem).getMaze().getCellCount() : Double.POSITIVE_INFINITY;
+    }
+
     public String toString() { return this.getClass().getName(); }
 }
 
+
+/**
+ * Pattern database heuristic for PacmanFoodSearchProblem. The dots are partitioned into groups of at most
+ * GROUP_SIZE dots that are close in the maze. For each group, a state is abstracted to the pacman cell and
+ * the remaining dots of the group, and the database holds the exact cost of eating these dots from the cell
+ * while ignoring all other dots: the shortest path from the cell over the dots, see Util.shortestSubsetPaths.
+ *
+ * The value is the max over the groups and FoodHeuristic, which is admissible and consistent, and at least
+ * as informed as FoodHeuristic. Adding the groups up instead would not be admissible, since every move
+ * of pacman counts towards the cost of every group.
+ *
+ * Entries are unsigned bytes saturated at MAX_ENTRY, which keeps the value admissible and consistent.
+ * A row holds the entries of one subset of a group for all cells, it is built the first time a state needs it.
+ *
+ * @param <S>
+ * @param <A>
+ */
+class FoodPatternDatabaseHeuristic<S,A> implements SearchHeuristic<S,A> {
+    static final int GROUP_SIZE = 12;
+    static final int MAX_ENTRY = 255;
+
+    private volatile PacmanFoodSearchProblem problem;
+    private Maze maze;
+    private MazeDistanceOracle oracle;
+    /**
+     * groups[g] lists the dots of group g, bit b of a pattern stands for dot groups[g][b]
+     */
+    private int[][] groups;
+    private int[][] paths;
+    /**
+     * rows.get(g).get(pattern)[cell] is the database entry, the row is null until built;
+     * atomic arrays publish the rows safely to threads sharing the heuristic (see pastar)
+     */
+    private List<AtomicReferenceArray<byte[]>> rows;
+    private final FoodHeuristic<S,A> foodHeuristic = new FoodHeuristic<>();
+
+    public FoodPatternDatabaseHeuristic() {}
+
+    @Override
+    public Double value(S state, SearchProblem<S, A> problem) {
+
+        if (problem instanceof PacmanFoodSearchProblem && state instanceof PacmanFoodSearchState) {
+
+            PacmanFoodSearchState foodState = (PacmanFoodSearchState) state;
+            if (foodState.foodCount == 0)
+                return 0.0;
+            if (problem != this.problem)
+                initialise((PacmanFoodSearchProblem) problem, foodState.foodLocations);
+
+            int max = foodHeuristic.value(state, problem).intValue();
+            for (int g = 0; g < groups.length; g++) {
+                int pattern = 0;
+                for (int b = 0; b < groups[g].length; b++) {
+                    if (foodState.hasFood(groups[g][b]))
+                        pattern |= 1 << b;
+                }
+                if (pattern == 0)
+                    continue;
+                byte[] row = rows.get(g).get(pattern);
+                if (row == null)
+                    row = buildRow(g, pattern);
+                max = Math.max(max, row[foodState.cell] & 0xFF);
+            }
+            return (double) max;
+        }
+
+        return 0.0;
+    }
+
+    /**
+     * Synchronized, and the problem is published last, see MazeDistanceHeuristic
+     */
+    private synchronized void initialise(PacmanFoodSearchProblem problem, Coordinate[] foodLocations) {
+        if (problem == this.problem)
+            return;
+        this.maze = problem.getMaze();
+        this.oracle = maze.getDistanceOracle(Arrays.asList(foodLocations));
+        int[] foodCells = new int[foodLocations.length];
+        for (int i = 0; i < foodLocations.length; i++) {
+            foodCells[i] = maze.getCellIndex(foodLocations[i]);
+        }
+
+        // greedy clustering: grow each group by the unassigned dot closest to one of its dots
+        List<int[]> groupList = new ArrayList<>();
+        boolean[] assigned = new boolean[foodLocations.length];
+        int[] groupDistances = new int[foodLocations.length];
+        for (int seed = 0; seed < foodLocations.length; seed++) {
+            if (assigned[seed])
+                continue;
+            int[] group = new int[GROUP_SIZE];
+            int size = 0;
+            Arrays.fill(groupDistances, Integer.MAX_VALUE);
+            for (int next = seed; next >= 0 && size < GROUP_SIZE; ) {
+                assigned[next] = true;
+                group[size++] = next;
+                int added = next;
+                next = -1;
+                for (int i = 0; i < foodLocations.length; i++) {
+                    if (assigned[i])
+                        continue;
+                    int distance = oracle.distanceFromSource(added, foodCells[i]);
+                    if (distance >= 0)
+                        groupDistances[i] = Math.min(groupDistances[i], distance);
+                    if (groupDistances[i] < Integer.MAX_VALUE && (next < 0 || groupDistances[i] < groupDistances[next]))
+                        next = i;
+                }
+            }
+            groupList.add(Arrays.copyOf(group, size));
+        }
+
+        this.groups = groupList.toArray(new int[0][]);
+        this.paths = new int[groups.length][];
+        this.rows = new ArrayList<>(groups.length);
+        for (int g = 0; g < groups.length; g++) {
+            int k = groups[g].length;
+            int[] distances = new int[k * k];
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < k; j++) {
+                    distances[i * k + j] = oracle.distanceFromSource(groups[g][i], foodCells[groups[g][j]]);
+                }
+            }
+            paths[g] = Util.shortestSubsetPaths(distances, k, MAX_ENTRY);
+            rows.add(new AtomicReferenceArray<>(1 << k));
+        }
+        this.problem = problem;
+    }
+
+    /**
+     * Fills the row of a pattern: the cheapest first dot of the pattern plus the shortest path
+     * from it over the rest of the pattern; dots of a group are always reachable from each other.
+     * Threads that need the same row at once may both build it, with the same result.
+     */
+    private byte[] buildRow(int g, int pattern) {
+        int[] group = groups[g];
+        int k = group.length;
+        byte[] row = new byte[maze.getCellCount()];
+        for (int cell = 0; cell < row.length; cell++) {
+            int best = MAX_ENTRY;
+            for (int bits = pattern; bits != 0; bits &= bits - 1) {
+                int b = Integer.numberOfTrailingZeros(bits);
+                int distance = oracle.distanceFromSource(group[b], cell);
+                if (distance >= 0)
+                    best = Math.min(best, distance + paths[g][pattern * k + b]);
+            }
+            row[cell] = (byte) best;
+        }
+        rows.get(g).set(pattern, row);
+        return row;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    @Override
+    public double unreachableValue(SearchProblem<S, A> problem) {
+        return problem instanceof PacmanFoodSearchProblem
+                ? ((PacmanFoodSearchProblem) problem).getMaze().getCellCount() : Double.POSITIVE_INFINITY;
+    }
+
+    public String toString() { return this.getClass().getName(); }
+}
@@ -17,9 +17,16 @@
  * You should not need to modify this file.
  */
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 public class Util {
 
@@ -42,6 +49,151 @@ public class Util {
         public boolean isEmpty();
     }
 
+    /**
+     * A frontier that holds at most one item per key (for instance, per state) and
+     * supports lowering the priority of an item that is already in the frontier.
+     */
+    public static interface KeyedFrontier<K, N> extends Frontier<N> {
+        /**
+         * check if there is an item with the given key in the frontier
+         */
+        public boolean contains(K key);
+
+        /**
+         * @return the item with the given key, or null if there is none
+         */
+        public N get(K key);
+
+        /**
+         * restore the order after the priority of item, which must be in the frontier, was lowered
+         */
+        public void decreaseKey(N item);
+    }
+
+    /**
+     * Items of an IndexedHeap remember their position in the heap, so that
+     * decreaseKey does not have to search for them.
+     */
+    public static interface HeapElement {
+        public int getHeapIndex();
+
+        public void setHeapIndex(int index);
+    }
+
+    /**
+     * The items of a KeyedFrontier by key. Keys with a dense index, such as the states of problems
+     * with SearchProblem.getStateIndex, are looked up in an array indexed by it; other keys in a hash map.
+     */
+    public static class KeyedItems<K, N> {
+        HashMap<K, N> map = null;
+        Object[] array = null;
+        ToIntFunction<? super K> indexFunction = null;
+
+        KeyedItems() {
+            this.map = new HashMap<>();
+        }
+
+        /**
+         * @param indexFunction maps the keys to 0..indexBound-1, different keys to different indices
+         */
+        KeyedItems(ToIntFunction<? super K> indexFunction, int indexBound) {
+            this.array = new Object[indexBound];
+            this.indexFunction = indexFunction;
+        }
+
+        /**
+         * Adds the item unless there is an item with the same key
+         *
+         * @return the item with the key that was there before, or null
+         */
+        @SuppressWarnings("unchecked")
+        public N putIfAbsent(K key, N item) {
+            if (map != null)
+                return map.putIfAbsent(key, item);
+            int index = indexFunction.applyAsInt(key);
+            N known = (N) array[index];
+            if (known == null)
+                array[index] = item;
+            return known;
+        }
+
+        @SuppressWarnings("unchecked")
+        public N get(K key) {
+            return map != null ? map.get(key) : (N) array[indexFunction.applyAsInt(key)];
+        }
+
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        public void remove(K key) {
+            if (map != null)
+                map.remove(key);
+            else
+                array[indexFunction.applyAsInt(key)] = null;
+        }
+    }
+
+    /**
+     * A uniform data-structure for the set of states that have already been expanded.
+     */
+    public static interface ClosedSet<S> {
+        /**
+         * check if state is in the set
+         */
+        public boolean contains(S state);
+
+        /**
+         * add state to the set
+         */
+        public void add(S state);
+    }
+
+    public static class StampedIntSet {
+        /**
+         * A set of integers in the range 0..capacity-1 backed by an array of generation stamps.
+         * An integer is in the set if its stamp equals the current generation, so clearing
+         * the set only increments the generation, which makes the set cheap to reuse.
+         */
+
+        int[] stamps = null;
+        int generation;
+
+        StampedIntSet(int capacity) {
+            stamps = new int[capacity];
+            generation = 1;
+        }
+
+        public boolean contains(int i) {
+            return stamps[i] == generation;
+        }
+
+        /**
+         * Adds i to the set and returns true if it was not in the set yet
+         */
+        public boolean add(int i) {
+            if (stamps[i] == generation)
+                return false;
+            stamps[i] = generation;
+            return true;
+        }
+
+        public void remove(int i) {
+            stamps[i] = 0;
+        }
+
+        /**
+         * Removes all elements in O(1), the stamps are only reset when the generation overflows
+         */
+        public void clear() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+    }
+
     public static class Stack<N> implements Frontier<N> {
         /**
          * A container with a last-in-first-out (LIFO) queuing policy.
@@ -109,6 +261,865 @@ public class Util {
         }
     }
 
+    public static class ArrayStack<N> implements Frontier<N> {
+        /**
+         * A last-in-first-out (LIFO) container backed by a growable array.
+         * Unlike Stack, pushing an item does not allocate a list node.
+         */
+
+        Object[] elements = null;
+        int size;
+
+        ArrayStack() {
+            elements = new Object[16];
+            size = 0;
+        }
+
+        public void push(N item) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            elements[size++] = item;
+        }
+
+        @SuppressWarnings("unchecked")
+        public N pop() {
+            if (size == 0)
+                return null;
+            N item = (N) elements[--size];
+            elements[size] = null;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    public static class ArrayQueue<N> implements Frontier<N> {
+        /**
+         * A first-in-first-out (FIFO) container backed by a growable circular array.
+         * The capacity is always a power of two, so that positions wrap around with a mask.
+         */
+
+        Object[] elements = null;
+        int head;
+        int size;
+
+        ArrayQueue() {
+            elements = new Object[16];
+            head = 0;
+            size = 0;
+        }
+
+        public void push(N item) {
+            if (size == elements.length) {
+                Object[] grown = new Object[2 * size];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = elements[(head + i) & (elements.length - 1)];
+                }
+                elements = grown;
+                head = 0;
+            }
+            elements[(head + size) & (elements.length - 1)] = item;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        public N pop() {
+            if (size == 0)
+                return null;
+            N item = (N) elements[head];
+            elements[head] = null;
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A frontier of primitive ints, for instance, of encoded states or of indices of nodes
+     * stored in arrays. Avoids boxing the elements.
+     */
+    public static interface IntFrontier {
+        public void push(int item);
+
+        /**
+         * @throws NoSuchElementException if the frontier is empty
+         */
+        public int pop();
+
+        public boolean isEmpty();
+
+        public void clear();
+    }
+
+    /**
+     * A frontier of primitive longs, see IntFrontier.
+     */
+    public static interface LongFrontier {
+        public void push(long item);
+
+        /**
+         * @throws NoSuchElementException if the frontier is empty
+         */
+        public long pop();
+
+        public boolean isEmpty();
+
+        public void clear();
+    }
+
+    public static class IntStack implements IntFrontier {
+        /**
+         * LIFO container of ints backed by a growable array
+         */
+
+        int[] elements = null;
+        int size;
+
+        IntStack() {
+            elements = new int[16];
+            size = 0;
+        }
+
+        public void push(int item) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            elements[size++] = item;
+        }
+
+        public int pop() {
+            if (size == 0)
+                throw new NoSuchElementException();
+            return elements[--size];
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    public static class IntQueue implements IntFrontier {
+        /**
+         * FIFO container of ints backed by a growable circular array with power of two capacity
+         */
+
+        int[] elements = null;
+        int head;
+        int size;
+
+        IntQueue() {
+            elements = new int[16];
+            head = 0;
+            size = 0;
+        }
+
+        public void push(int item) {
+            if (size == elements.length) {
+                int[] grown = new int[2 * size];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = elements[(head + i) & (elements.length - 1)];
+                }
+                elements = grown;
+                head = 0;
+            }
+            elements[(head + size) & (elements.length - 1)] = item;
+            size++;
+        }
+
+        public int pop() {
+            if (size == 0)
+                throw new NoSuchElementException();
+            int item = elements[head];
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    public static class LongStack implements LongFrontier {
+        /**
+         * LIFO container of longs backed by a growable array
+         */
+
+        long[] elements = null;
+        int size;
+
+        LongStack() {
+            elements = new long[16];
+            size = 0;
+        }
+
+        public void push(long item) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            elements[size++] = item;
+        }
+
+        public long pop() {
+            if (size == 0)
+                throw new NoSuchElementException();
+            return elements[--size];
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    public static class LongQueue implements LongFrontier {
+        /**
+         * FIFO container of longs backed by a growable circular array with power of two capacity
+         */
+
+        long[] elements = null;
+        int head;
+        int size;
+
+        LongQueue() {
+            elements = new long[16];
+            head = 0;
+            size = 0;
+        }
+
+        public void push(long item) {
+            if (size == elements.length) {
+                long[] grown = new long[2 * size];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = elements[(head + i) & (elements.length - 1)];
+                }
+                elements = grown;
+                head = 0;
+            }
+            elements[(head + size) & (elements.length - 1)] = item;
+            size++;
+        }
+
+        public long pop() {
+            if (size == 0)
+                throw new NoSuchElementException();
+            long item = elements[head];
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    public static class IndexedHeap<K, N extends Comparable<? super N> & HeapElement> implements KeyedFrontier<K, N> {
+        /**
+         * A d-ary min-heap with at most one item per key and decrease-key.
+         * Items are ordered by their natural ordering, the head of the heap is the least item.
+         * Each item stores its position in the heap (see HeapElement), the items are found
+         * by key through KeyedItems.
+         */
+
+        static final int ARITY = 4;
+
+        Object[] elements = null;
+        int size;
+        KeyedItems<K, N> items = null;
+        Function<? super N, ? extends K> keyFunction = null;
+
+        IndexedHeap(Function<? super N, ? extends K> keyFunction) {
+            this(keyFunction, new KeyedItems<>());
+        }
+
+        IndexedHeap(Function<? super N, ? extends K> keyFunction, KeyedItems<K, N> items) {
+            this.elements = new Object[16];
+            this.size = 0;
+            this.items = items;
+            this.keyFunction = keyFunction;
+        }
+
+        /**
+         * Add 'item' to the heap, there must be no item with the same key in the heap
+         */
+        public void push(N item) {
+            if (items.putIfAbsent(keyFunction.apply(item), item) != null) {
+                throw new IllegalStateException("An item with the key of " + item + " is already in the heap");
+            }
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            size++;
+            siftUp(size - 1, item);
+        }
+
+        /**
+         * Remove and return the least item
+         */
+        @SuppressWarnings("unchecked")
+        public N pop() {
+            if (size == 0)
+                return null;
+            N head = (N) elements[0];
+            N last = (N) elements[--size];
+            elements[size] = null;
+            if (size > 0) {
+                siftDown(0, last);
+            }
+            head.setHeapIndex(-1);
+            items.remove(keyFunction.apply(head));
+            return head;
+        }
+
+        /**
+         * Return the least item without removing it
+         */
+        @SuppressWarnings("unchecked")
+        public N peek() {
+            return size == 0 ? null : (N) elements[0];
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(K key) {
+            return items.containsKey(key);
+        }
+
+        public N get(K key) {
+            return items.get(key);
+        }
+
+        public void decreaseKey(N item) {
+            siftUp(item.getHeapIndex(), item);
+        }
+
+        /**
+         * Restores the heap order in linear time after the ordering of any number of items has changed
+         */
+        @SuppressWarnings("unchecked")
+        public void heapify() {
+            for (int index = (size - 2) / ARITY; index >= 0; index--) {
+                siftDown(index, (N) elements[index]);
+            }
+        }
+
+        /**
+         * @return the items in heap order (not sorted)
+         */
+        @SuppressWarnings("unchecked")
+        public List<N> items() {
+            List<N> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add((N) elements[i]);
+            }
+            return list;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void siftUp(int index, N item) {
+            while (index > 0) {
+                int parentIndex = (index - 1) / ARITY;
+                N parent = (N) elements[parentIndex];
+                if (item.compareTo(parent) >= 0)
+                    break;
+                elements[index] = parent;
+                parent.setHeapIndex(index);
+                index = parentIndex;
+            }
+            elements[index] = item;
+            item.setHeapIndex(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void siftDown(int index, N item) {
+            while (true) {
+                int firstChild = ARITY * index + 1;
+                if (firstChild >= size)
+                    break;
+                int smallest = firstChild;
+                int lastChild = Math.min(firstChild + ARITY, size);
+                for (int child = firstChild + 1; child < lastChild; child++) {
+                    if (((N) elements[child]).compareTo((N) elements[smallest]) < 0)
+                        smallest = child;
+                }
+                N smallestChild = (N) elements[smallest];
+                if (item.compareTo(smallestChild) <= 0)
+                    break;
+                elements[index] = smallestChild;
+                smallestChild.setHeapIndex(index);
+                index = smallest;
+            }
+            elements[index] = item;
+            item.setHeapIndex(index);
+        }
+    }
+
+    public static class BucketQueue<K, N extends HeapElement> implements KeyedFrontier<K, N> {
+        /**
+         * A bucket queue (Dial's algorithm) for items with small non-negative integer priorities,
+         * for instance, f-values of problems with integer costs and an integer heuristic.
+         * push, pop and decreaseKey take O(1) time plus the scan over empty buckets, and a search
+         * over the distinct tie keys of the bucket.
+         *
+         * Ties within a bucket are broken by a second non-negative integer key, smaller first
+         * (for A* the heuristic value, which prefers deeper nodes among nodes of equal f).
+         * Items with equal priority and tie key are popped in last-in-first-out order.
+         *
+         * Each bin (priority, tie key) is a doubly linked list over slots of shared arrays. A bucket keeps
+         * the tie keys of its non-empty bins in a sorted array next to the heads of their lists, so its size
+         * depends on the number of items and not on the range of the tie keys. An item in the queue occupies
+         * one slot, whose number is kept as its heap index (see HeapElement), so that decreaseKey can unlink it
+         * without searching. As for IndexedHeap, there is at most one item per key.
+         */
+
+        int[][] bucketTies = null;
+        int[][] bucketHeads = null;
+        int[] binCounts = null;
+        int minPriority;
+
+        Object[] slotItems = null;
+        int[] slotNext = null;
+        int[] slotPrevious = null;
+        int[] slotPriorities = null;
+        int[] slotTies = null;
+        int freeSlot;
+        int slotCount;
+
+        int size;
+        KeyedItems<K, N> items = null;
+        Function<? super N, ? extends K> keyFunction = null;
+        ToIntFunction<? super N> priorityFunction = null;
+        ToIntFunction<? super N> tieFunction = null;
+
+        BucketQueue(Function<? super N, ? extends K> keyFunction, ToIntFunction<? super N> priorityFunction,
+                    ToIntFunction<? super N> tieFunction) {
+            this(keyFunction, new KeyedItems<>(), priorityFunction, tieFunction);
+        }
+
+        BucketQueue(Function<? super N, ? extends K> keyFunction, KeyedItems<K, N> items,
+                    ToIntFunction<? super N> priorityFunction, ToIntFunction<? super N> tieFunction) {
+            this.bucketTies = new int[64][];
+            this.bucketHeads = new int[64][];
+            this.binCounts = new int[64];
+            this.minPriority = 0;
+            this.slotItems = new Object[64];
+            this.slotNext = new int[64];
+            this.slotPrevious = new int[64];
+            this.slotPriorities = new int[64];
+            this.slotTies = new int[64];
+            this.freeSlot = -1;
+            this.slotCount = 0;
+            this.size = 0;
+            this.items = items;
+            this.keyFunction = keyFunction;
+            this.priorityFunction = priorityFunction;
+            this.tieFunction = tieFunction;
+        }
+
+        /**
+         * Add 'item' to the queue, there must be no item with the same key in the queue
+         */
+        public void push(N item) {
+            if (items.putIfAbsent(keyFunction.apply(item), item) != null) {
+                throw new IllegalStateException("An item with the key of " + item + " is already in the queue");
+            }
+            int slot = allocateSlot();
+            slotItems[slot] = item;
+            item.setHeapIndex(slot);
+            link(slot, priorityFunction.applyAsInt(item), tieFunction == null ? 0 : tieFunction.applyAsInt(item));
+            size++;
+        }
+
+        /**
+         * Remove and return an item of the least priority, and of the least tie key among those
+         */
+        @SuppressWarnings("unchecked")
+        public N pop() {
+            if (size == 0)
+                return null;
+            while (binCounts[minPriority] == 0) {
+                minPriority++;
+            }
+            int slot = bucketHeads[minPriority][0];
+            N item = (N) slotItems[slot];
+            unlink(slot);
+            freeSlot(slot);
+            item.setHeapIndex(-1);
+            items.remove(keyFunction.apply(item));
+            size--;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(K key) {
+            return items.containsKey(key);
+        }
+
+        public N get(K key) {
+            return items.get(key);
+        }
+
+        /**
+         * Moves the item to the bin of its new priority and tie key
+         */
+        public void decreaseKey(N item) {
+            int slot = item.getHeapIndex();
+            int priority = priorityFunction.applyAsInt(item);
+            int tie = tieFunction == null ? 0 : tieFunction.applyAsInt(item);
+            if (priority == slotPriorities[slot] && tie == slotTies[slot])
+                return;
+            unlink(slot);
+            link(slot, priority, tie);
+        }
+
+        private void link(int slot, int priority, int tie) {
+            if (priority < 0 || tie < 0) {
+                throw new IllegalArgumentException("Negative priority " + priority + " or tie key " + tie
+                        + " of " + slotItems[slot]);
+            }
+            if (priority >= bucketTies.length) {
+                int length = Math.max(2 * bucketTies.length, priority + 1);
+                bucketTies = Arrays.copyOf(bucketTies, length);
+                bucketHeads = Arrays.copyOf(bucketHeads, length);
+                binCounts = Arrays.copyOf(binCounts, length);
+            }
+            if (bucketTies[priority] == null) {
+                bucketTies[priority] = new int[4];
+                bucketHeads[priority] = new int[4];
+            }
+            int[] ties = bucketTies[priority];
+            int count = binCounts[priority];
+            int bin = Arrays.binarySearch(ties, 0, count, tie);
+            int head = -1;
+            if (bin >= 0) {
+                head = bucketHeads[priority][bin];
+            } else {
+                bin = -bin - 1;
+                if (count == ties.length) {
+                    ties = Arrays.copyOf(ties, 2 * count);
+                    bucketTies[priority] = ties;
+                    bucketHeads[priority] = Arrays.copyOf(bucketHeads[priority], 2 * count);
+                }
+                int[] heads = bucketHeads[priority];
+                System.arraycopy(ties, bin, ties, bin + 1, count - bin);
+                System.arraycopy(heads, bin, heads, bin + 1, count - bin);
+                ties[bin] = tie;
+                binCounts[priority]++;
+            }
+            slotNext[slot] = head;
+            slotPrevious[slot] = -1;
+            if (head >= 0)
+                slotPrevious[head] = slot;
+            bucketHeads[priority][bin] = slot;
+            slotPriorities[slot] = priority;
+            slotTies[slot] = tie;
+
+            if (priority < minPriority)
+                minPriority = priority;
+        }
+
+        private void unlink(int slot) {
+            int priority = slotPriorities[slot];
+            int next = slotNext[slot];
+            int previous = slotPrevious[slot];
+            if (next >= 0)
+                slotPrevious[next] = previous;
+            if (previous >= 0) {
+                slotNext[previous] = next;
+                return;
+            }
+
+            int[] ties = bucketTies[priority];
+            int[] heads = bucketHeads[priority];
+            int count = binCounts[priority];
+            // the least tie key is the common case, as pop takes the head of the first bin
+            int bin = ties[0] == slotTies[slot] ? 0 : Arrays.binarySearch(ties, 0, count, slotTies[slot]);
+            if (next >= 0) {
+                heads[bin] = next;
+            } else {
+                System.arraycopy(ties, bin + 1, ties, bin, count - bin - 1);
+                System.arraycopy(heads, bin + 1, heads, bin, count - bin - 1);
+                binCounts[priority]--;
+            }
+        }
+
+        private int allocateSlot() {
+            if (freeSlot >= 0) {
+                int slot = freeSlot;
+                freeSlot = slotNext[slot];
+                return slot;
+            }
+            if (slotCount == slotItems.length) {
+                int length = 2 * slotCount;
+                slotItems = Arrays.copyOf(slotItems, length);
+                slotNext = Arrays.copyOf(slotNext, length);
+                slotPrevious = Arrays.copyOf(slotPrevious, length);
+                slotPriorities = Arrays.copyOf(slotPriorities, length);
+                slotTies = Arrays.copyOf(slotTies, length);
+            }
+            return slotCount++;
+        }
+
+        private void freeSlot(int slot) {
+            slotItems[slot] = null;
+            slotNext[slot] = freeSlot;
+            freeSlot = slot;
+        }
+    }
+
+    public static class RadixHeap<K, N extends HeapElement> implements KeyedFrontier<K, N> {
+        /**
+         * A monotone priority queue for non-negative real priorities: no item may be pushed (or decreased) below
+         * the priority of the last popped item. That holds for uniform-cost search and for A* with a consistent
+         * heuristic, other searches have to use IndexedHeap.
+         *
+         * A priority is mapped to the bits of its IEEE 754 representation, which for non-negative doubles
+         * are ordered like the doubles themselves. Bucket 0 holds the items whose key equals the last popped key,
+         * bucket i > 0 those whose key first differs from it in bit i - 1. When bucket 0 is empty, pop takes
+         * the least key of the lowest non-empty bucket as the new last key and redistributes that bucket
+         * into lower buckets, so every item is moved at most 64 times. Items of equal priority are popped
+         * in last-in-first-out order.
+         *
+         * As in BucketQueue, the items live in slots of shared arrays and the slot number is the heap index of
+         * an item. There is at most one item per key.
+         */
+
+        int[][] buckets = null;
+        int[] bucketSizes = null;
+        long lastKey;
+
+        Object[] slotItems = null;
+        long[] slotKeys = null;
+        int[] slotBuckets = null;
+        int[] slotPositions = null;
+        int freeSlot;
+        int slotCount;
+
+        int size;
+        KeyedItems<K, N> items = null;
+        Function<? super N, ? extends K> keyFunction = null;
+        ToDoubleFunction<? super N> priorityFunction = null;
+
+        RadixHeap(Function<? super N, ? extends K> keyFunction, ToDoubleFunction<? super N> priorityFunction) {
+            this(keyFunction, new KeyedItems<>(), priorityFunction);
+        }
+
+        RadixHeap(Function<? super N, ? extends K> keyFunction, KeyedItems<K, N> items,
+                  ToDoubleFunction<? super N> priorityFunction) {
+            this.buckets = new int[65][];
+            this.bucketSizes = new int[65];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new int[8];
+            }
+            this.lastKey = 0;
+            this.slotItems = new Object[64];
+            this.slotKeys = new long[64];
+            this.slotBuckets = new int[64];
+            this.slotPositions = new int[64];
+            this.freeSlot = -1;
+            this.slotCount = 0;
+            this.size = 0;
+            this.items = items;
+            this.keyFunction = keyFunction;
+            this.priorityFunction = priorityFunction;
+        }
+
+        /**
+         * Add 'item' to the queue, there must be no item with the same key in the queue
+         */
+        public void push(N item) {
+            long key = radixKey(item);
+            if (items.putIfAbsent(keyFunction.apply(item), item) != null) {
+                throw new IllegalStateException("An item with the key of " + item + " is already in the queue");
+            }
+            int slot = allocateSlot();
+            slotItems[slot] = item;
+            slotKeys[slot] = key;
+            item.setHeapIndex(slot);
+            insert(slot);
+            size++;
+        }
+
+        /**
+         * Remove and return an item of the least priority
+         */
+        @SuppressWarnings("unchecked")
+        public N pop() {
+            if (size == 0)
+                return null;
+            if (bucketSizes[0] == 0) {
+                int bucket = 1;
+                while (bucketSizes[bucket] == 0) {
+                    bucket++;
+                }
+                int[] slots = buckets[bucket];
+                int count = bucketSizes[bucket];
+                long minKey = Long.MAX_VALUE;
+                for (int i = 0; i < count; i++) {
+                    minKey = Math.min(minKey, slotKeys[slots[i]]);
+                }
+                lastKey = minKey;
+                bucketSizes[bucket] = 0;
+                for (int i = 0; i < count; i++) {
+                    insert(slots[i]);
+                }
+            }
+            int slot = buckets[0][--bucketSizes[0]];
+            N item = (N) slotItems[slot];
+            freeSlot(slot);
+            item.setHeapIndex(-1);
+            items.remove(keyFunction.apply(item));
+            size--;
+            return item;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(K key) {
+            return items.containsKey(key);
+        }
+
+        public N get(K key) {
+            return items.get(key);
+        }
+
+        /**
+         * Moves the item to the bucket of its new priority
+         */
+        public void decreaseKey(N item) {
+            int slot = item.getHeapIndex();
+            long key = radixKey(item);
+            if (key == slotKeys[slot])
+                return;
+            int bucket = slotBuckets[slot];
+            int position = slotPositions[slot];
+            int last = buckets[bucket][--bucketSizes[bucket]];
+            buckets[bucket][position] = last;
+            slotPositions[last] = position;
+            slotKeys[slot] = key;
+            insert(slot);
+        }
+
+        private long radixKey(N item) {
+            double priority = priorityFunction.applyAsDouble(item);
+            // adding 0.0 turns -0.0 into 0.0
+            long key = Double.doubleToLongBits(priority + 0.0);
+            if (key < lastKey) {
+                // rounding of g + h may put a successor marginally below its parent
+                double last = Double.longBitsToDouble(lastKey);
+                if (!(priority >= 0) || last - priority > 1e-9 * last) {
+                    throw new IllegalStateException("Radix heap requires non-negative monotone priorities, got "
+                            + priority + " after " + last);
+                }
+                key = lastKey;
+            }
+            return key;
+        }
+
+        private void insert(int slot) {
+            long key = slotKeys[slot];
+            int bucket = key == lastKey ? 0 : 64 - Long.numberOfLeadingZeros(key ^ lastKey);
+            int[] slots = buckets[bucket];
+            if (bucketSizes[bucket] == slots.length) {
+                slots = Arrays.copyOf(slots, 2 * slots.length);
+                buckets[bucket] = slots;
+            }
+            slotBuckets[slot] = bucket;
+            slotPositions[slot] = bucketSizes[bucket];
+            slots[bucketSizes[bucket]++] = slot;
+        }
+
+        private int allocateSlot() {
+            if (freeSlot >= 0) {
+                int slot = freeSlot;
+                freeSlot = slotPositions[slot];
+                return slot;
+            }
+            if (slotCount == slotItems.length) {
+                int length = 2 * slotCount;
+                slotItems = Arrays.copyOf(slotItems, length);
+                slotKeys = Arrays.copyOf(slotKeys, length);
+                slotBuckets = Arrays.copyOf(slotBuckets, length);
+                slotPositions = Arrays.copyOf(slotPositions, length);
+            }
+            return slotCount++;
+        }
+
+        private void freeSlot(int slot) {
+            slotItems[slot] = null;
+            slotPositions[slot] = freeSlot;
+            freeSlot = slot;
+        }
+    }
+
     public static class PriorityQueue<N> implements Frontier<N> {
         /**
          * A container for a priority queue. N is supposed to implement Comparable<N> interface.
@@ -146,6 +1157,83 @@ public class Util {
             return elements.isEmpty();
         }
     }
+
+    /**
+     * Partially orders keys[0..size-1] so that keys[0..k-1] are the k least keys (in no particular order),
+     * items[i] is moved together with keys[i]. Quickselect with median-of-three pivots,
+     * expected O(size) time.
+     */
+    public static void selectLeast(double[] keys, Object[] items, int size, int k) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high && k > low && k <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < keys[low])
+                swap(keys, items, middle, low);
+            if (keys[high] < keys[low])
+                swap(keys, items, high, low);
+            if (keys[high] < keys[middle])
+                swap(keys, items, high, middle);
+            double pivot = keys[middle];
+
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    swap(keys, items, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // keys[low..j] <= pivot <= keys[i..high]
+            if (k <= j + 1)
+                high = j;
+            else if (k >= i)
+                low = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Held-Karp dynamic programming over the subsets of k points, O(2^k k^2) time.
+     *
+     * @param distances k x k row-major matrix of distances between the points
+     * @param limit value for paths that are longer, or that use an unreachable distance of limit or more
+     * @return a (2^k) x k matrix, entry [mask * k + i] is the length of the shortest path that starts
+     * at point i and visits all points in mask (0 if i is not in mask)
+     */
+    public static int[] shortestSubsetPaths(int[] distances, int k, int limit) {
+        int[] paths = new int[(1 << k) * k];
+        for (int mask = 1; mask < 1 << k; mask++) {
+            for (int i = 0; i < k; i++) {
+                if ((mask & (1 << i)) == 0)
+                    continue;
+                // subsets without i come first, so their paths are done
+                int rest = mask & ~(1 << i);
+                long best = rest == 0 ? 0 : Long.MAX_VALUE;
+                for (int bits = rest; bits != 0; bits &= bits - 1) {
+                    int j = Integer.numberOfTrailingZeros(bits);
+                    best = Math.min(best, (long) distances[i * k + j] + paths[rest * k + j]);
+                }
+                paths[mask * k + i] = (int) Math.min(best, limit);
+            }
+        }
+        return paths;
+    }
+
+    private static void swap(double[] keys, Object[] items, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+    }
 }
 
 /**
@@ -238,4 +1326,56 @@ class SuccessorInfo<S,A> {
     }
 }
 
+class SuccessorBuffer<S,A> {
+    /**
+     * A reusable container for the successors of a state, filled by
+     * SearchProblem.expand(state, buffer). Holds the same triples as SuccessorInfo
+     * in parallel arrays, so that expanding a state does not allocate once the
+     * arrays have grown to the maximal branching factor.
+     */
+    Object[] nextStates;
+    Object[] actions;
+    double[] costs;
+    int size;
+
+    public SuccessorBuffer() {
+        nextStates = new Object[4];
+        actions = new Object[4];
+        costs = new double[4];
+        size = 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(S nextState, A action, double cost) {
+        if (size == costs.length) {
+            nextStates = Arrays.copyOf(nextStates, 2 * size);
+            actions = Arrays.copyOf(actions, 2 * size);
+            costs = Arrays.copyOf(costs, 2 * size);
+        }
+        nextStates[size] = nextState;
+        actions[size] = action;
+        costs[size] = cost;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
 
+    @SuppressWarnings("unchecked")
+    public S getNextState(int i) {
+        return (S) nextStates[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public A getAction(int i) {
+        return (A) actions[i];
+    }
+
+    public double getCost(int i) {
+        return costs[i];
+    }
+}